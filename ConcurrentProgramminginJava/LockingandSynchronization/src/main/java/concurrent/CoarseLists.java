@@ -2,9 +2,10 @@ package concurrent;
 
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 /**
- * Wrapper class for two lock-based concurrent list implementations.
+ * Wrapper class for three lock-based concurrent list implementations.
  *  * Caution:
  *  * It is generally not considered good practice to have multiple top-level classes in a single file in Java.
  *  * Each top-level class should be in its own file. This makes the code easier to read, maintain, and navigate.
@@ -224,4 +225,128 @@ public final class CoarseLists {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * An implementation of the ListSet interface that uses a Java stamped
+     * lock to protect against concurrent accesses.
+     *
+     * Writers hold the write lock as in RWCoarseList. contains() first walks
+     * the list under an optimistic read stamp, which writes no shared state,
+     * and only takes the read lock if a writer ran in the meantime. The walk
+     * is safe to attempt while a writer is active because entries are never
+     * unlinked from their successors, so every path from head still reaches
+     * the tail in increasing order.
+     */
+    public static final class StampedCoarseList extends ListSet {
+        /*
+         * Declared a stamped lock for this class to be used in implementing
+         * the concurrent add, remove, and contains methods below.
+         */
+
+        StampedLock stampedLock = new StampedLock();
+
+        /**
+         * Default constructor.
+         */
+        public StampedCoarseList() {
+            super();
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * Used the write lock to protect against concurrent access.
+         */
+        @Override
+        boolean add(final Integer object) {
+            final long stamp = stampedLock.writeLock();
+            try {
+                Entry pred = this.head;
+                Entry curr = pred.next;
+
+                while (curr.object.compareTo(object) < 0) {
+                    pred = curr;
+                    curr = curr.next;
+                }
+
+                if (object.equals(curr.object)) {
+                    return false;
+                } else {
+                    final Entry entry = new Entry(object);
+                    entry.next = curr;
+                    pred.next = entry;
+                    return true;
+                }
+            } finally {
+                stampedLock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * Used the write lock to protect against concurrent access.
+         */
+        @Override
+        boolean remove(final Integer object) {
+            final long stamp = stampedLock.writeLock();
+            try {
+                Entry pred = this.head;
+                Entry curr = pred.next;
+
+                while (curr.object.compareTo(object) < 0) {
+                    pred = curr;
+                    curr = curr.next;
+                }
+
+                if (object.equals(curr.object)) {
+                    pred.next = curr.next;
+                    return true;
+                } else {
+                    return false;
+                }
+            } finally {
+                stampedLock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * Used an optimistic read, falling back to the read lock if it fails
+         * validation.
+         */
+        @Override
+        boolean contains(final Integer object) {
+            final long optimistic = stampedLock.tryOptimisticRead();
+            if (optimistic != 0L) {
+                final boolean found = search(object);
+                if (stampedLock.validate(optimistic)) {
+                    return found;
+                }
+            }
+
+            final long stamp = stampedLock.readLock();
+            try {
+                return search(object);
+            } finally {
+                stampedLock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Walk the list looking for a value, without any locking.
+         *
+         * @param object The integer to check for.
+         * @return true if the value was found
+         */
+        private boolean search(final Integer object) {
+            Entry curr = this.head.next;
+
+            while (curr.object.compareTo(object) < 0) {
+                curr = curr.next;
+            }
+            return object.equals(curr.object);
+        }
+    }
+}
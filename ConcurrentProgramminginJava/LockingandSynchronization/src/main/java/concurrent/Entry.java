@@ -1,18 +1,45 @@
 package concurrent;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * A single element in any of the list implementations.
  */
 public final class Entry {
     /**
-     * The value stored in this list entry.
+     * Installs an entry's lock the first time it is needed.
+     */
+    private static final AtomicReferenceFieldUpdater<Entry, ReentrantLock>
+        LOCK = AtomicReferenceFieldUpdater.newUpdater(Entry.class,
+                ReentrantLock.class, "lock");
+
+    /**
+     * The value stored in this list entry, or null if this entry is a
+     * deletion marker in a LockFreeList.
      */
     public final Integer object;
 
     /**
-     * The next element in this singly linked list.
+     * The next element in this singly linked list. Volatile so that lists
+     * which read it without holding a lock see a fully constructed entry.
+     * Lists that only read it under a lock pay nothing measurable for this
+     * on the platforms the tests run on.
      */
-    public Entry next;
+    public volatile Entry next;
+
+    /**
+     * Whether this entry has been logically removed, for lists that remove
+     * entries in two steps.
+     */
+    public volatile boolean marked;
+
+    /**
+     * Lock guarding this entry's next field, for lists that lock individual
+     * entries rather than the whole list. Created on first use so that
+     * entries of the other lists, and deletion markers, never allocate one.
+     */
+    private volatile ReentrantLock lock;
 
     /**
      * The general constructor used when creating a new list entry.
@@ -22,4 +49,19 @@ public final class Entry {
     Entry(final Integer setObject) {
         this.object = setObject;
     }
+
+    /**
+     * Getter for the lock guarding this entry's next field, creating it on
+     * first call. Concurrent first calls all return the same lock.
+     *
+     * @return This entry's lock
+     */
+    public ReentrantLock getLock() {
+        final ReentrantLock existing = lock;
+        if (existing != null) {
+            return existing;
+        }
+        LOCK.compareAndSet(this, null, new ReentrantLock());
+        return lock;
+    }
 }
@@ -0,0 +1,120 @@
+package concurrent;
+
+/**
+ * An implementation of the ListSet interface that locks individual entries
+ * rather than the whole list.
+ *
+ * Every operation walks the list hand over hand with two adjacent entries,
+ * pred and curr, locked. To advance it releases pred, makes the still locked
+ * curr the new pred and then locks its successor, so a thread always holds
+ * the lock on its current entry and can never overtake another. Since add
+ * and remove only change pred.next while holding both pred and curr,
+ * operations on disjoint parts of the list proceed in parallel. Locks are
+ * always taken in list order, so there is no deadlock.
+ */
+public final class FineList extends ListSet {
+    /**
+     * Default constructor.
+     */
+    public FineList() {
+        super();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Locks the entries on either side of the insertion point.
+     */
+    @Override
+    boolean add(final Integer object) {
+        Entry pred = this.head;
+        pred.getLock().lock();
+        try {
+            Entry curr = pred.next;
+            curr.getLock().lock();
+            try {
+                while (curr.object.compareTo(object) < 0) {
+                    pred.getLock().unlock();
+                    pred = curr;
+                    curr = curr.next;
+                    curr.getLock().lock();
+                }
+
+                if (object.equals(curr.object)) {
+                    return false;
+                } else {
+                    final Entry entry = new Entry(object);
+                    entry.next = curr;
+                    pred.next = entry;
+                    return true;
+                }
+            } finally {
+                curr.getLock().unlock();
+            }
+        } finally {
+            pred.getLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Locks the removed entry and its predecessor.
+     */
+    @Override
+    boolean remove(final Integer object) {
+        Entry pred = this.head;
+        pred.getLock().lock();
+        try {
+            Entry curr = pred.next;
+            curr.getLock().lock();
+            try {
+                while (curr.object.compareTo(object) < 0) {
+                    pred.getLock().unlock();
+                    pred = curr;
+                    curr = curr.next;
+                    curr.getLock().lock();
+                }
+
+                if (object.equals(curr.object)) {
+                    pred.next = curr.next;
+                    return true;
+                } else {
+                    return false;
+                }
+            } finally {
+                curr.getLock().unlock();
+            }
+        } finally {
+            pred.getLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Locks the entries on either side of the target value.
+     */
+    @Override
+    boolean contains(final Integer object) {
+        Entry pred = this.head;
+        pred.getLock().lock();
+        try {
+            Entry curr = pred.next;
+            curr.getLock().lock();
+            try {
+                while (curr.object.compareTo(object) < 0) {
+                    pred.getLock().unlock();
+                    pred = curr;
+                    curr = curr.next;
+                    curr.getLock().lock();
+                }
+                return object.equals(curr.object);
+            } finally {
+                curr.getLock().unlock();
+            }
+        } finally {
+            pred.getLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package concurrent;
+
+/**
+ * An implementation of the ListSet interface in which contains() takes no
+ * locks at all.
+ *
+ * add and remove search the list without locking, then lock only pred and
+ * curr and validate that neither has been removed and that pred still points
+ * to curr, retrying the search if not. remove first marks curr as deleted
+ * and only then unlinks it, so an entry reachable from head is in the set
+ * exactly when it is unmarked. contains() therefore only has to walk the
+ * list and check the mark of the entry it stops at.
+ */
+public final class LazyList extends ListSet {
+    /**
+     * Default constructor.
+     */
+    public LazyList() {
+        super();
+    }
+
+    /**
+     * Check that pred and curr are still adjacent entries in the list. Must
+     * be called with both locked.
+     *
+     * @param pred The earlier entry
+     * @param curr The later entry
+     * @return true if neither is removed and pred.next is curr
+     */
+    private static boolean validate(final Entry pred, final Entry curr) {
+        return !pred.marked && !curr.marked && pred.next == curr;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Locks the entries on either side of the insertion point.
+     */
+    @Override
+    boolean add(final Integer object) {
+        while (true) {
+            Entry pred = this.head;
+            Entry curr = pred.next;
+
+            while (curr.object.compareTo(object) < 0) {
+                pred = curr;
+                curr = curr.next;
+            }
+
+            pred.getLock().lock();
+            try {
+                curr.getLock().lock();
+                try {
+                    if (validate(pred, curr)) {
+                        if (object.equals(curr.object)) {
+                            return false;
+                        } else {
+                            final Entry entry = new Entry(object);
+                            entry.next = curr;
+                            pred.next = entry;
+                            return true;
+                        }
+                    }
+                } finally {
+                    curr.getLock().unlock();
+                }
+            } finally {
+                pred.getLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Locks the removed entry and its predecessor.
+     */
+    @Override
+    boolean remove(final Integer object) {
+        while (true) {
+            Entry pred = this.head;
+            Entry curr = pred.next;
+
+            while (curr.object.compareTo(object) < 0) {
+                pred = curr;
+                curr = curr.next;
+            }
+
+            pred.getLock().lock();
+            try {
+                curr.getLock().lock();
+                try {
+                    if (validate(pred, curr)) {
+                        if (object.equals(curr.object)) {
+                            curr.marked = true;
+                            pred.next = curr.next;
+                            return true;
+                        } else {
+                            return false;
+                        }
+                    }
+                } finally {
+                    curr.getLock().unlock();
+                }
+            } finally {
+                pred.getLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Takes no locks.
+     */
+    @Override
+    boolean contains(final Integer object) {
+        Entry curr = this.head.next;
+
+        while (curr.object.compareTo(object) < 0) {
+            curr = curr.next;
+        }
+        return object.equals(curr.object) && !curr.marked;
+    }
+}
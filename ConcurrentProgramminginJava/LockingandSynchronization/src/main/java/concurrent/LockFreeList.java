@@ -0,0 +1,157 @@
+package concurrent;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A non-blocking implementation of the ListSet interface, after Harris and
+ * Michael. No operation ever waits for another thread, so a thread that is
+ * descheduled in the middle of an update cannot stall the others.
+ *
+ * All links are changed by compare-and-set. An entry is removed in two
+ * steps. First a marker entry, whose object is null, is CASed in as its
+ * successor. From then on the entry is logically deleted, and because every
+ * insertion CASes pred.next from an unmarked successor, nothing can be
+ * linked after it. Then the entry and its marker are unlinked from the
+ * predecessor. Any thread that walks past a deleted entry helps unlink it,
+ * and remove does not return until its entry is unlinked, so once all
+ * operations have returned no markers remain in the list.
+ */
+public final class LockFreeList extends ListSet {
+    /**
+     * Compare-and-set access to Entry.next.
+     */
+    private static final AtomicReferenceFieldUpdater<Entry, Entry> NEXT =
+        AtomicReferenceFieldUpdater.newUpdater(Entry.class, Entry.class,
+                "next");
+
+    /**
+     * Default constructor.
+     */
+    public LockFreeList() {
+        super();
+    }
+
+    /**
+     * Check whether an entry is a deletion marker.
+     *
+     * @param entry The entry, or null
+     * @return true if entry is a marker
+     */
+    private static boolean isMarker(final Entry entry) {
+        return entry != null && entry.object == null;
+    }
+
+    /**
+     * Find the first entry whose object is not less than the target value,
+     * unlinking every deleted entry met on the way.
+     *
+     * @param object The target value
+     * @param predOut If non-null, receives the predecessor in element 0
+     * @return The entry, which was not deleted and was linked from
+     *         predOut[0] when it was reached
+     */
+    private Entry find(final Integer object, final Entry[] predOut) {
+        retry:
+        while (true) {
+            Entry pred = this.head;
+            Entry curr = pred.next;
+
+            while (true) {
+                if (isMarker(curr)) {
+                    // pred has been deleted since we stepped onto it
+                    continue retry;
+                }
+                final Entry succ = curr.next;
+                if (isMarker(succ)) {
+                    // curr is deleted: unlink it and its marker
+                    final Entry after = succ.next;
+                    if (!NEXT.compareAndSet(pred, curr, after)) {
+                        continue retry;
+                    }
+                    curr = after;
+                } else if (curr.object.compareTo(object) < 0) {
+                    pred = curr;
+                    curr = succ;
+                } else {
+                    if (predOut != null) {
+                        predOut[0] = pred;
+                    }
+                    return curr;
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Links the new entry in with a single compare-and-set.
+     */
+    @Override
+    boolean add(final Integer object) {
+        final Entry[] pred = new Entry[1];
+        Entry entry = null;
+        while (true) {
+            final Entry curr = find(object, pred);
+
+            if (object.equals(curr.object)) {
+                return false;
+            } else {
+                if (entry == null) {
+                    entry = new Entry(object);
+                }
+                entry.next = curr;
+                if (NEXT.compareAndSet(pred[0], curr, entry)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Marks the entry as deleted, then makes sure it is unlinked before
+     * returning.
+     */
+    @Override
+    boolean remove(final Integer object) {
+        final Entry[] pred = new Entry[1];
+        while (true) {
+            final Entry curr = find(object, pred);
+
+            if (!object.equals(curr.object)) {
+                return false;
+            }
+            final Entry succ = curr.next;
+            if (isMarker(succ)) {
+                // Deleted by another thread, which owns the removal
+                continue;
+            }
+            final Entry marker = new Entry(null);
+            marker.next = succ;
+            if (NEXT.compareAndSet(curr, succ, marker)) {
+                if (!NEXT.compareAndSet(pred[0], curr, succ)) {
+                    // Lost a race on pred: a fresh search unlinks curr
+                    find(object, null);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Takes no locks and performs no writes.
+     */
+    @Override
+    boolean contains(final Integer object) {
+        Entry curr = this.head.next;
+
+        while (isMarker(curr) || curr.object.compareTo(object) < 0) {
+            curr = curr.next;
+        }
+        return object.equals(curr.object) && !isMarker(curr.next);
+    }
+}
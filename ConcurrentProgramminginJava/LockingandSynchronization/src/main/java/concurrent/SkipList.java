@@ -0,0 +1,392 @@
+package concurrent;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A non-blocking implementation of the ListSet interface in which add,
+ * remove and contains take expected O(log n) steps rather than a linear
+ * scan, in the style of java.util.concurrent.ConcurrentSkipListMap.
+ *
+ * The entries starting at head form the base level, which is managed
+ * exactly like LockFreeList: links change by compare-and-set, and an entry
+ * is removed by first CASing a marker entry (null object) in as its
+ * successor and then unlinking both. Above the base sit index levels of
+ * Index nodes, each pointing to an entry, to the index below it and to the
+ * next index on its level. About one entry in four gets an index on level
+ * one, one in sixteen on level two, and so on.
+ *
+ * The index levels are only a hint for where to start searching the base
+ * level. An index whose entry has been deleted is unlinked by the next
+ * search that passes it, so an index may briefly point to a deleted entry
+ * or be missing, which only costs some extra steps on the base level.
+ */
+public final class SkipList extends ListSet {
+    /**
+     * Largest number of index levels.
+     */
+    private static final int MAX_LEVEL = 16;
+
+    /**
+     * Compare-and-set access to Entry.next.
+     */
+    private static final AtomicReferenceFieldUpdater<Entry, Entry> NEXT =
+        AtomicReferenceFieldUpdater.newUpdater(Entry.class, Entry.class,
+                "next");
+
+    /**
+     * Compare-and-set access to Index.right.
+     */
+    private static final AtomicReferenceFieldUpdater<Index, Index> RIGHT =
+        AtomicReferenceFieldUpdater.newUpdater(Index.class, Index.class,
+                "right");
+
+    /**
+     * Compare-and-set access to top.
+     */
+    private static final AtomicReferenceFieldUpdater<SkipList, HeadIndex>
+        TOP = AtomicReferenceFieldUpdater.newUpdater(SkipList.class,
+                HeadIndex.class, "top");
+
+    /**
+     * Head of the highest index level.
+     */
+    private volatile HeadIndex top;
+
+    /**
+     * Default constructor.
+     */
+    public SkipList() {
+        super();
+        this.top = new HeadIndex(this.head, null, 1);
+    }
+
+    /**
+     * Check whether an entry is a deletion marker.
+     *
+     * @param entry The entry, or null
+     * @return true if entry is a marker
+     */
+    private static boolean isMarker(final Entry entry) {
+        return entry != null && entry.object == null;
+    }
+
+    /**
+     * Check whether an entry has been deleted from the base level.
+     *
+     * @param entry The entry
+     * @return true if its successor is a marker
+     */
+    private static boolean isDeleted(final Entry entry) {
+        return isMarker(entry.next);
+    }
+
+    /**
+     * Replace q's right neighbour, unless q's entry has been deleted, in
+     * which case q is itself being unlinked from its level.
+     *
+     * @param q The index to change
+     * @param expect Its expected right neighbour
+     * @param update Its new right neighbour
+     * @return true if the link was changed
+     */
+    private static boolean casRight(final Index q, final Index expect,
+            final Index update) {
+        return !isDeleted(q.node) && RIGHT.compareAndSet(q, expect, update);
+    }
+
+    /**
+     * Walk the index levels to the last base-level entry known to be less
+     * than the target value, unlinking every index of a deleted entry met on
+     * the way.
+     *
+     * @param object The target value
+     * @return An entry less than object, possibly head
+     */
+    private Entry findPredecessor(final Integer object) {
+        retry:
+        while (true) {
+            Index q = this.top;
+            Index r = q.right;
+
+            while (true) {
+                if (r != null) {
+                    if (isDeleted(r.node)) {
+                        if (!casRight(q, r, r.right)) {
+                            continue retry;
+                        }
+                        r = q.right;
+                        continue;
+                    }
+                    if (r.node.object.compareTo(object) < 0) {
+                        q = r;
+                        r = r.right;
+                        continue;
+                    }
+                }
+                final Index d = q.down;
+                if (d == null) {
+                    return q.node;
+                }
+                q = d;
+                r = d.right;
+            }
+        }
+    }
+
+    /**
+     * Find the first base-level entry whose object is not less than the
+     * target value, unlinking every deleted entry met on the way.
+     *
+     * @param object The target value
+     * @param predOut If non-null, receives the predecessor in element 0
+     * @return The entry, which was not deleted and was linked from
+     *         predOut[0] when it was reached
+     */
+    private Entry find(final Integer object, final Entry[] predOut) {
+        retry:
+        while (true) {
+            Entry pred = findPredecessor(object);
+            Entry curr = pred.next;
+
+            while (true) {
+                if (isMarker(curr)) {
+                    // pred has been deleted since we stepped onto it
+                    continue retry;
+                }
+                final Entry succ = curr.next;
+                if (isMarker(succ)) {
+                    // curr is deleted: unlink it and its marker
+                    final Entry after = succ.next;
+                    if (!NEXT.compareAndSet(pred, curr, after)) {
+                        continue retry;
+                    }
+                    curr = after;
+                } else if (curr.object.compareTo(object) < 0) {
+                    pred = curr;
+                    curr = succ;
+                } else {
+                    if (predOut != null) {
+                        predOut[0] = pred;
+                    }
+                    return curr;
+                }
+            }
+        }
+    }
+
+    /**
+     * Pick how many index levels a new entry gets: k with probability
+     * (3/4) * (1/4)^k.
+     *
+     * @return The number of levels, at most MAX_LEVEL
+     */
+    private static int randomLevel() {
+        int bits = ThreadLocalRandom.current().nextInt();
+        int level = 0;
+        while ((bits & 3) == 0 && level < MAX_LEVEL) {
+            level++;
+            bits >>>= 2;
+        }
+        return level;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Links the new entry into the base level with a single compare-and-set,
+     * then builds its index levels.
+     */
+    @Override
+    boolean add(final Integer object) {
+        final Entry[] pred = new Entry[1];
+        final Entry entry = new Entry(object);
+        while (true) {
+            final Entry curr = find(object, pred);
+
+            if (object.equals(curr.object)) {
+                return false;
+            }
+            entry.next = curr;
+            if (NEXT.compareAndSet(pred[0], curr, entry)) {
+                break;
+            }
+        }
+
+        int level = randomLevel();
+        if (level > 0) {
+            HeadIndex h = this.top;
+            // Grow by at most one level at a time
+            level = Math.min(level, h.level + 1);
+            while (h.level < level) {
+                if (TOP.compareAndSet(this, h,
+                            new HeadIndex(this.head, h, h.level + 1))) {
+                    break;
+                }
+                h = this.top;
+            }
+            Index tower = null;
+            for (int i = 1; i <= level; i++) {
+                tower = new Index(entry, tower);
+            }
+            insertIndex(tower, level);
+        }
+        return true;
+    }
+
+    /**
+     * Link a new entry's index nodes into their levels, from the top down.
+     *
+     * @param tower The entry's highest index node
+     * @param level The level of that node
+     */
+    private void insertIndex(final Index tower, final int level) {
+        final Integer object = tower.node.object;
+        Index t = tower;
+        int insertionLevel = level;
+
+        retry:
+        while (true) {
+            HeadIndex h = this.top;
+            int j = h.level;
+            Index q = h;
+            Index r = q.right;
+
+            while (true) {
+                if (r != null) {
+                    if (isDeleted(r.node)) {
+                        if (!casRight(q, r, r.right)) {
+                            continue retry;
+                        }
+                        r = q.right;
+                        continue;
+                    }
+                    if (r.node.object.compareTo(object) < 0) {
+                        q = r;
+                        r = r.right;
+                        continue;
+                    }
+                }
+                if (j == insertionLevel) {
+                    if (isDeleted(t.node)) {
+                        // Removed meanwhile: clear any indexes already linked
+                        findPredecessor(object);
+                        return;
+                    }
+                    t.right = r;
+                    if (!casRight(q, r, t)) {
+                        continue retry;
+                    }
+                    if (--insertionLevel == 0) {
+                        return;
+                    }
+                    t = t.down;
+                }
+                j--;
+                q = q.down;
+                r = q.right;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Marks the entry as deleted, then makes sure it and its indexes are
+     * unlinked before returning.
+     */
+    @Override
+    boolean remove(final Integer object) {
+        final Entry[] pred = new Entry[1];
+        while (true) {
+            final Entry curr = find(object, pred);
+
+            if (!object.equals(curr.object)) {
+                return false;
+            }
+            final Entry succ = curr.next;
+            if (isMarker(succ)) {
+                // Deleted by another thread, which owns the removal
+                continue;
+            }
+            final Entry marker = new Entry(null);
+            marker.next = succ;
+            if (NEXT.compareAndSet(curr, succ, marker)) {
+                if (!NEXT.compareAndSet(pred[0], curr, succ)) {
+                    // Lost a race on pred: a fresh search unlinks curr
+                    find(object, null);
+                }
+                findPredecessor(object);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Takes no locks, and only writes to help unlink deleted indexes.
+     */
+    @Override
+    boolean contains(final Integer object) {
+        Entry curr = findPredecessor(object).next;
+
+        while (isMarker(curr) || curr.object.compareTo(object) < 0) {
+            curr = curr.next;
+        }
+        return object.equals(curr.object) && !isMarker(curr.next);
+    }
+
+    /**
+     * A node on one of the index levels.
+     */
+    private static class Index {
+        /**
+         * The base-level entry this index points to.
+         */
+        final Entry node;
+        /**
+         * The index for the same entry one level down, or null on level
+         * one.
+         */
+        final Index down;
+        /**
+         * The next index on this level.
+         */
+        volatile Index right;
+
+        /**
+         * Constructor.
+         *
+         * @param setNode The base-level entry
+         * @param setDown The index one level down
+         */
+        Index(final Entry setNode, final Index setDown) {
+            this.node = setNode;
+            this.down = setDown;
+        }
+    }
+
+    /**
+     * The first node of an index level, pointing to head.
+     */
+    private static final class HeadIndex extends Index {
+        /**
+         * The level, counting up from one.
+         */
+        final int level;
+
+        /**
+         * Constructor.
+         *
+         * @param setNode The list head
+         * @param setDown The head of the level below, or null
+         * @param setLevel The level
+         */
+        HeadIndex(final Entry setNode, final Index setDown,
+                final int setLevel) {
+            super(setNode, setDown);
+            this.level = setLevel;
+        }
+    }
+}
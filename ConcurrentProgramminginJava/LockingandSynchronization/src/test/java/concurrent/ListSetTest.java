@@ -8,6 +8,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import concurrent.CoarseLists.CoarseList;
 import concurrent.CoarseLists.RWCoarseList;
+import concurrent.CoarseLists.StampedCoarseList;
 
 
 public class ListSetTest extends TestCase {
@@ -127,6 +128,38 @@ public class ListSetTest extends TestCase {
                 expectedContains, expectedRemove, "Small");
     }
 
+    public void testFineGrainedLockingRandomLarge() throws InterruptedException {
+        testRandomLargeHelper(() -> new FineList(), "FineList", 0.2, 0.2, 0.2);
+    }
+
+    public void testLazyListRandomLarge() throws InterruptedException {
+        testRandomLargeHelper(() -> new LazyList(), "LazyList", 0.5, 0.7, 0.5);
+    }
+
+    public void testLockFreeListRandomLarge() throws InterruptedException {
+        testRandomLargeHelper(() -> new LockFreeList(), "LockFreeList", 0.5,
+                0.7, 0.5);
+    }
+
+    public void testLockFreeListRepeatingLarge() throws InterruptedException {
+        testRepeatingLargeHelper(() -> new LockFreeList(), "LockFreeList", 0.5,
+                0.6, 0.5);
+    }
+
+    public void testStampedLockRandomLarge() throws InterruptedException {
+        testRandomLargeHelper(() -> new StampedCoarseList(),
+                "StampedCoarseList", 0.5, 0.7, 0.5);
+    }
+
+    public void testSkipListRandomLarge() throws InterruptedException {
+        testRandomLargeHelper(() -> new SkipList(), "SkipList", 1.0, 1.0, 1.0);
+    }
+
+    public void testSkipListRepeatingLarge() throws InterruptedException {
+        testRepeatingLargeHelper(() -> new SkipList(), "SkipList", 1.0, 1.0,
+                1.0);
+    }
+
     private void testCoarseGrainedLockingHelper(final SequenceGenerator addSeq,
             final SequenceGenerator containsSeq,
             final SequenceGenerator removeSeq, final double expectedAdd,
@@ -222,6 +255,97 @@ public class ListSetTest extends TestCase {
         assertTrue(removemsg, removeImprovement >= expectedRemove);
     }
 
+    public void testSentinelsAreNotMembers() {
+        final ListSet[] lists = new ListSet[] {new SyncList(), new LazyList(),
+            new LockFreeList(), new SkipList()};
+        for (ListSet list : lists) {
+            final String lbl = list.getClass().getSimpleName();
+            assertFalse(lbl, list.contains(Integer.MIN_VALUE));
+            assertTrue(lbl, list.add(Integer.MIN_VALUE + 1));
+            assertFalse(lbl, list.contains(Integer.MIN_VALUE));
+            assertTrue(lbl, list.contains(Integer.MIN_VALUE + 1));
+        }
+    }
+
+    private void testRandomLargeHelper(final ListFactory factory,
+            final String lbl, final double expectedAdd,
+            final double expectedContains, final double expectedRemove)
+            throws InterruptedException {
+        final SequenceGenerator addSeq = new RandomSequenceGenerator(0,
+                getNCores() * randNumsLength, randNumRange);
+        final SequenceGenerator containsSeq = new RandomSequenceGenerator(1,
+                getNCores() * randNumsLength, randNumRange);
+        final SequenceGenerator removeSeq = new ReversedSequenceGenerator(
+                new RandomSequenceGenerator(2, getNCores() * randNumsLength, randNumRange));
+
+        testAgainstSyncListHelper(factory, lbl, addSeq, containsSeq, removeSeq,
+                expectedAdd, expectedContains, expectedRemove, "Large");
+    }
+
+    private void testRepeatingLargeHelper(final ListFactory factory,
+            final String lbl, final double expectedAdd,
+            final double expectedContains, final double expectedRemove)
+            throws InterruptedException {
+        final SequenceGenerator addSeq = new RepeatingSequenceGenerator(
+                getNCores() * 6 * randNumsLength, randNumsLength);
+        final SequenceGenerator containsSeq = new RepeatingSequenceGenerator(
+                getNCores() * 6 * randNumsLength, randNumsLength);
+        final SequenceGenerator removeSeq = new ReversedSequenceGenerator(
+                new RepeatingSequenceGenerator(getNCores() * 6 * randNumsLength,
+                    randNumsLength));
+
+        testAgainstSyncListHelper(factory, lbl, addSeq, containsSeq, removeSeq,
+                expectedAdd, expectedContains, expectedRemove, "Large");
+    }
+
+    private void testAgainstSyncListHelper(final ListFactory factory,
+            final String lbl, final SequenceGenerator addSeq,
+            final SequenceGenerator containsSeq,
+            final SequenceGenerator removeSeq, final double expectedAdd,
+            final double expectedContains, final double expectedRemove,
+            final String datasetName) throws InterruptedException {
+        final TestResultsPair results = runKernel(factory, lbl,
+                () -> new SyncList(), "SyncList", addSeq, containsSeq,
+                removeSeq);
+        final TestResults testResults = results.A;
+        final TestResults syncResults = results.B;
+        printStats(syncResults, testResults, addSeq, datasetName);
+
+        assertEquals(syncResults.listLengthAfterAdds,
+                testResults.listLengthAfterAdds);
+        assertEquals(syncResults.totalContainsSuccesses,
+                testResults.totalContainsSuccesses);
+        assertEquals(syncResults.totalContainsFailures,
+                testResults.totalContainsFailures);
+        assertEquals(syncResults.listLengthAfterRemoves,
+                testResults.listLengthAfterRemoves);
+        assertEquals(syncResults.totalRemovesSuccesses,
+                testResults.totalRemovesSuccesses);
+        assertEquals(syncResults.totalRemovesFailures,
+                testResults.totalRemovesFailures);
+
+        final double addImprovement = testResults.addRate / syncResults.addRate;
+        final double containsImprovement = testResults.containsRate /
+            syncResults.containsRate;
+        final double removeImprovement = testResults.removeRate /
+            syncResults.removeRate;
+
+        final String addmsg = String.format("Expected add throughput to be " +
+                "at least %fx with %s, but found %fx", expectedAdd, lbl,
+                addImprovement);
+        assertTrue(addmsg, addImprovement >= expectedAdd);
+
+        final String containsmsg = String.format("Expected contains " +
+                "throughput to be at least %fx with %s, but found %fx",
+                expectedContains, lbl, containsImprovement);
+        assertTrue(containsmsg, containsImprovement >= expectedContains);
+
+        final String removemsg = String.format("Expected remove throughput " +
+                "to be at least %fx with %s, but found %fx", expectedRemove,
+                lbl, removeImprovement);
+        assertTrue(removemsg, removeImprovement >= expectedRemove);
+    }
+
     private static TestResultsPair runKernel(final ListFactory factoryA,
             final String lblA, final ListFactory factoryB, final String lblB,
             final SequenceGenerator addSeq, final SequenceGenerator containsSeq,
@@ -0,0 +1,245 @@
+package parallel;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Answers StudentAnalytics queries over a StudentDataset, remembering each
+ * result until the dataset changes. The first lookup after a change drops
+ * every result computed from an older version, and beyond that the least
+ * recently used results are evicted once capacity is reached.
+ *
+ * The cache holds a future per query rather than a finished result. The
+ * first caller to miss on a query installs the future and computes it
+ * outside the cache lock; callers that look the query up meanwhile wait on
+ * that future instead of repeating the scan, so a burst of identical
+ * queries after a change costs one scan. All methods may be called
+ * concurrently.
+ */
+public final class CachingStudentAnalytics {
+    /**
+     * The data being queried.
+     */
+    private final StudentDataset dataset;
+    /**
+     * Computes the results.
+     */
+    private final StudentAnalytics analytics = new StudentAnalytics();
+    /**
+     * Pending or finished result of each cached query, in access order.
+     * Guarded by this.
+     */
+    private final LinkedHashMap<Object, CompletableFuture<Object>> cache;
+    /**
+     * Version of the dataset that every cached result was computed from.
+     * Guarded by this.
+     */
+    private long cachedVersion = 0;
+    /**
+     * Number of lookups answered from the cache.
+     */
+    private final LongAdder hits = new LongAdder();
+    /**
+     * Number of lookups that had to compute their result.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param setDataset The data to query
+     * @param capacity Largest number of results kept
+     */
+    public CachingStudentAnalytics(final StudentDataset setDataset,
+            final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.dataset = setDataset;
+        this.cache = new LinkedHashMap<Object, CompletableFuture<Object>>(16,
+                0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<Object, CompletableFuture<Object>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Average age of all actively enrolled students.
+     *
+     * @return Average age of enrolled students, or 0.0 if there are none
+     */
+    public double averageAgeOfEnrolledStudents() {
+        return query("averageAgeOfEnrolledStudents", s ->
+                analytics.averageAgeOfEnrolledStudentsColumnar(s.getTable()));
+    }
+
+    /**
+     * Most common first name out of all students that are no longer active.
+     *
+     * @return Most common first name of inactive students, or null if there
+     *         are none
+     */
+    public String mostCommonFirstNameOfInactiveStudents() {
+        return query("mostCommonFirstNameOfInactiveStudents", s -> analytics
+                .mostCommonFirstNameOfInactiveStudentsColumnar(s.getTable()));
+    }
+
+    /**
+     * Number of students who have failed the course and are older than 20.
+     *
+     * @return Number of failed grades from students older than 20 years old.
+     */
+    public int countNumberOfFailedStudentsOlderThan20() {
+        return query("countNumberOfFailedStudentsOlderThan20", s -> analytics
+                .countNumberOfFailedStudentsOlderThan20Columnar(s.getTable()));
+    }
+
+    /**
+     * Number of students matching a query.
+     *
+     * @param filter The query
+     * @return Number of matching students
+     */
+    public int count(final StudentQuery filter) {
+        return query(Arrays.asList("count", filter),
+                s -> filter.count(s.getTable()));
+    }
+
+    /**
+     * Average age of students matching a query.
+     *
+     * @param filter The query
+     * @return Average age, or 0.0 if no student matches
+     */
+    public double averageAge(final StudentQuery filter) {
+        return query(Arrays.asList("averageAge", filter),
+                s -> filter.averageAge(s.getTable()));
+    }
+
+    /**
+     * Per-group statistics of students matching a query.
+     *
+     * @param filter Which students to include
+     * @param key What to group by
+     * @param measure The attribute to summarize
+     * @return The per-group statistics
+     */
+    public StudentGroups groupBy(final StudentQuery filter, final GroupKey key,
+            final StudentGroups.Measure measure) {
+        return query(Arrays.asList("groupBy", filter, key, measure),
+                s -> analytics.groupBy(s.getTable(), filter, key, measure));
+    }
+
+    /**
+     * Look up or compute the result of an arbitrary query. The result must
+     * depend only on the snapshot passed to compute, and must not be
+     * modified by callers once returned.
+     *
+     * @param queryKey Identifies the query; equal keys must denote the same
+     *        computation
+     * @param compute Computes the result from a snapshot of the dataset
+     * @param <R> Result type
+     * @return The result for the current version of the dataset
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R query(final Object queryKey,
+            final Function<StudentDataset.Snapshot, R> compute) {
+        final StudentDataset.Snapshot snapshot = dataset.snapshot();
+        CompletableFuture<Object> future = null;
+        CompletableFuture<Object> cached = null;
+        synchronized (this) {
+            if (snapshot.getVersion() > cachedVersion) {
+                cache.clear();
+                cachedVersion = snapshot.getVersion();
+            }
+            // A snapshot older than the cache is computed but not stored
+            if (snapshot.getVersion() == cachedVersion) {
+                cached = cache.get(queryKey);
+                if (cached == null) {
+                    future = new CompletableFuture<Object>();
+                    cache.put(queryKey, future);
+                }
+            }
+        }
+        if (cached != null) {
+            hits.increment();
+            return (R) await(cached);
+        }
+
+        misses.increment();
+        final R result;
+        try {
+            result = compute.apply(snapshot);
+        } catch (RuntimeException | Error e) {
+            if (future != null) {
+                synchronized (this) {
+                    cache.remove(queryKey, future);
+                }
+                future.completeExceptionally(e);
+            }
+            throw e;
+        }
+        if (future != null) {
+            future.complete(result);
+        }
+        return result;
+    }
+
+    /**
+     * Wait for a cached result, rethrowing the exception it failed with.
+     *
+     * @param future The pending or finished result
+     * @return The result
+     */
+    private static Object await(final CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Number of lookups answered from the cache so far.
+     *
+     * @return Number of hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of lookups that computed their result so far.
+     *
+     * @return Number of misses
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Number of results currently cached.
+     *
+     * @return Number of cached results
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+}
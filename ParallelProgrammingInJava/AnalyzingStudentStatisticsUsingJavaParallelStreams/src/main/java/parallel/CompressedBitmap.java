@@ -0,0 +1,515 @@
+package parallel;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable compressed set of non-negative ints, in the style of a
+ * roaring bitmap. Values are grouped by their high 16 bits into containers
+ * of up to 65536 values each. A container holding at most ARRAY_MAX values
+ * is a sorted char[] of the low 16 bits; a denser container is a plain
+ * 65536-bit long[] bitmap. Sparse sets thus cost two bytes per value, dense
+ * sets one bit per possible value, and intersections of dense containers
+ * run 64 values per word operation.
+ */
+public final class CompressedBitmap {
+    /**
+     * Largest number of values held in array form.
+     */
+    static final int ARRAY_MAX = 4096;
+    /**
+     * Number of long words in a bitmap container.
+     */
+    private static final int BITMAP_WORDS = 1024;
+
+    /**
+     * High 16 bits of the values in each container, in increasing order.
+     */
+    private final char[] keys;
+    /**
+     * Each container: either a sorted char[] or a long[BITMAP_WORDS].
+     */
+    private final Object[] containers;
+    /**
+     * Number of values in each container.
+     */
+    private final int[] cardinalities;
+
+    /**
+     * Constructor. The arrays are used as-is, not copied.
+     *
+     * @param setKeys High 16 bits of each container
+     * @param setContainers Each container
+     * @param setCardinalities Number of values in each container
+     */
+    private CompressedBitmap(final char[] setKeys, final Object[] setContainers,
+            final int[] setCardinalities) {
+        this.keys = setKeys;
+        this.containers = setContainers;
+        this.cardinalities = setCardinalities;
+    }
+
+    /**
+     * Number of values in this set.
+     *
+     * @return Number of values
+     */
+    public long cardinality() {
+        long total = 0;
+        for (int c : cardinalities) {
+            total += c;
+        }
+        return total;
+    }
+
+    /**
+     * Check whether a value is in this set.
+     *
+     * @param x A non-negative value
+     * @return true if x is in this set
+     */
+    public boolean contains(final int x) {
+        final int k = Arrays.binarySearch(keys, (char) (x >>> 16));
+        if (k < 0) {
+            return false;
+        }
+        final char low = (char) x;
+        if (containers[k] instanceof char[]) {
+            return Arrays.binarySearch((char[]) containers[k], 0,
+                    cardinalities[k], low) >= 0;
+        }
+        return (((long[]) containers[k])[low >>> 6] & (1L << low)) != 0;
+    }
+
+    /**
+     * Call an action for every value in this set, in increasing order.
+     *
+     * @param action The action
+     */
+    public void forEach(final IntConsumer action) {
+        for (int k = 0; k < keys.length; k++) {
+            final int high = keys[k] << 16;
+            if (containers[k] instanceof char[]) {
+                final char[] values = (char[]) containers[k];
+                for (int i = 0; i < cardinalities[k]; i++) {
+                    action.accept(high | values[i]);
+                }
+            } else {
+                final long[] words = (long[]) containers[k];
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long bits = words[w];
+                    while (bits != 0) {
+                        action.accept(high | (w << 6)
+                                | Long.numberOfTrailingZeros(bits));
+                        bits &= bits - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Intersection of this set with another.
+     *
+     * @param other The other set
+     * @return A new set holding the values in both sets
+     */
+    public CompressedBitmap and(final CompressedBitmap other) {
+        final int capacity = Math.min(keys.length, other.keys.length);
+        final char[] outKeys = new char[capacity];
+        final Object[] outContainers = new Object[capacity];
+        final int[] outCards = new int[capacity];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                final Object a = containers[i];
+                final Object b = other.containers[j];
+                final Object result;
+                if (a instanceof char[] && b instanceof char[]) {
+                    result = andArrays((char[]) a, cardinalities[i], (char[]) b,
+                            other.cardinalities[j]);
+                } else if (a instanceof char[]) {
+                    result = andArrayBitmap((char[]) a, cardinalities[i],
+                            (long[]) b);
+                } else if (b instanceof char[]) {
+                    result = andArrayBitmap((char[]) b, other.cardinalities[j],
+                            (long[]) a);
+                } else {
+                    result = andBitmaps((long[]) a, (long[]) b);
+                }
+                final int card = cardinalityOf(result);
+                if (card > 0) {
+                    outKeys[n] = keys[i];
+                    outContainers[n] = result;
+                    outCards[n] = card;
+                    n++;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(outKeys, n),
+                Arrays.copyOf(outContainers, n), Arrays.copyOf(outCards, n));
+    }
+
+    /**
+     * Union of this set with another.
+     *
+     * @param other The other set
+     * @return A new set holding the values in either set
+     */
+    public CompressedBitmap or(final CompressedBitmap other) {
+        final int capacity = keys.length + other.keys.length;
+        final char[] outKeys = new char[capacity];
+        final Object[] outContainers = new Object[capacity];
+        final int[] outCards = new int[capacity];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length
+                    || (i < keys.length && keys[i] < other.keys[j])) {
+                outKeys[n] = keys[i];
+                outContainers[n] = containers[i];
+                outCards[n] = cardinalities[i];
+                i++;
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                outKeys[n] = other.keys[j];
+                outContainers[n] = other.containers[j];
+                outCards[n] = other.cardinalities[j];
+                j++;
+            } else {
+                final Object a = containers[i];
+                final Object b = other.containers[j];
+                final Object result;
+                if (a instanceof char[] && b instanceof char[]) {
+                    result = orArrays((char[]) a, cardinalities[i], (char[]) b,
+                            other.cardinalities[j]);
+                } else {
+                    final long[] words = new long[BITMAP_WORDS];
+                    orInto(words, a, cardinalities[i]);
+                    orInto(words, b, other.cardinalities[j]);
+                    result = words;
+                }
+                outKeys[n] = keys[i];
+                outContainers[n] = result;
+                outCards[n] = cardinalityOf(result);
+                i++;
+                j++;
+            }
+            n++;
+        }
+        return new CompressedBitmap(Arrays.copyOf(outKeys, n),
+                Arrays.copyOf(outContainers, n), Arrays.copyOf(outCards, n));
+    }
+
+    /**
+     * Concatenate sets whose values lie in increasing, disjoint ranges of
+     * containers, e.g. sets built in parallel over consecutive row ranges
+     * that are multiples of 65536 long.
+     *
+     * @param parts The sets, in increasing order of their values
+     * @return A set holding the values of every part
+     */
+    public static CompressedBitmap concat(final List<CompressedBitmap> parts) {
+        int total = 0;
+        for (CompressedBitmap part : parts) {
+            total += part.keys.length;
+        }
+        final char[] outKeys = new char[total];
+        final Object[] outContainers = new Object[total];
+        final int[] outCards = new int[total];
+        int n = 0;
+        for (CompressedBitmap part : parts) {
+            if (n > 0 && part.keys.length > 0
+                    && part.keys[0] <= outKeys[n - 1]) {
+                throw new IllegalArgumentException(
+                        "Parts overlap or are out of order");
+            }
+            System.arraycopy(part.keys, 0, outKeys, n, part.keys.length);
+            System.arraycopy(part.containers, 0, outContainers, n,
+                    part.keys.length);
+            System.arraycopy(part.cardinalities, 0, outCards, n,
+                    part.keys.length);
+            n += part.keys.length;
+        }
+        return new CompressedBitmap(outKeys, outContainers, outCards);
+    }
+
+    /**
+     * Number of values in a container.
+     *
+     * @param container A sorted char[] trimmed to length, or a bitmap
+     * @return Number of values
+     */
+    private static int cardinalityOf(final Object container) {
+        if (container instanceof char[]) {
+            return ((char[]) container).length;
+        }
+        int card = 0;
+        for (long word : (long[]) container) {
+            card += Long.bitCount(word);
+        }
+        return card;
+    }
+
+    /**
+     * Intersection of two array containers.
+     *
+     * @param a First container
+     * @param aCard Number of values in a
+     * @param b Second container
+     * @param bCard Number of values in b
+     * @return An array container trimmed to length
+     */
+    private static char[] andArrays(final char[] a, final int aCard,
+            final char[] b, final int bCard) {
+        final char[] out = new char[Math.min(aCard, bCard)];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < aCard && j < bCard) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Intersection of an array container with a bitmap container.
+     *
+     * @param a Array container
+     * @param aCard Number of values in a
+     * @param b Bitmap container
+     * @return An array container trimmed to length
+     */
+    private static char[] andArrayBitmap(final char[] a, final int aCard,
+            final long[] b) {
+        final char[] out = new char[aCard];
+        int n = 0;
+        for (int i = 0; i < aCard; i++) {
+            if ((b[a[i] >>> 6] & (1L << a[i])) != 0) {
+                out[n++] = a[i];
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Intersection of two bitmap containers.
+     *
+     * @param a First container
+     * @param b Second container
+     * @return A bitmap container, or an array container if the result is
+     *         sparse enough
+     */
+    private static Object andBitmaps(final long[] a, final long[] b) {
+        final long[] words = new long[BITMAP_WORDS];
+        int card = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            words[w] = a[w] & b[w];
+            card += Long.bitCount(words[w]);
+        }
+        if (card > ARRAY_MAX) {
+            return words;
+        }
+        final char[] out = new char[card];
+        int n = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long bits = words[w];
+            while (bits != 0) {
+                out[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Union of two array containers.
+     *
+     * @param a First container
+     * @param aCard Number of values in a
+     * @param b Second container
+     * @param bCard Number of values in b
+     * @return An array container trimmed to length, or a bitmap container if
+     *         the result is too dense
+     */
+    private static Object orArrays(final char[] a, final int aCard,
+            final char[] b, final int bCard) {
+        if (aCard + bCard > ARRAY_MAX) {
+            final long[] words = new long[BITMAP_WORDS];
+            orInto(words, a, aCard);
+            orInto(words, b, bCard);
+            if (cardinalityOf(words) > ARRAY_MAX) {
+                return words;
+            }
+        }
+        final char[] out = new char[aCard + bCard];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < aCard || j < bCard) {
+            if (j == bCard || (i < aCard && a[i] < b[j])) {
+                out[n++] = a[i++];
+            } else if (i == aCard || a[i] > b[j]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Set the bits of a container in a bitmap.
+     *
+     * @param words Destination bitmap
+     * @param container Array or bitmap container
+     * @param card Number of values in container
+     */
+    private static void orInto(final long[] words, final Object container,
+            final int card) {
+        if (container instanceof char[]) {
+            final char[] values = (char[]) container;
+            for (int i = 0; i < card; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+        } else {
+            final long[] other = (long[]) container;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] |= other[w];
+            }
+        }
+    }
+
+    /**
+     * Accumulates values in increasing order into a CompressedBitmap.
+     */
+    public static final class Builder {
+        /**
+         * High 16 bits of each finished container.
+         */
+        private char[] keys = new char[4];
+        /**
+         * Each finished container.
+         */
+        private Object[] containers = new Object[4];
+        /**
+         * Number of values in each finished container.
+         */
+        private int[] cardinalities = new int[4];
+        /**
+         * Number of finished containers.
+         */
+        private int size = 0;
+        /**
+         * High 16 bits of the container being filled, or -1 if none.
+         */
+        private int currentKey = -1;
+        /**
+         * Container being filled while it is sparse.
+         */
+        private char[] currentArray = null;
+        /**
+         * Container being filled once it is dense.
+         */
+        private long[] currentBitmap = null;
+        /**
+         * Number of values in the container being filled.
+         */
+        private int currentCard = 0;
+        /**
+         * Last value added, or -1 if none.
+         */
+        private int last = -1;
+
+        /**
+         * Add a value, which must be greater than every value added before.
+         *
+         * @param x A non-negative value
+         * @return This builder
+         */
+        public Builder add(final int x) {
+            if (x <= last) {
+                throw new IllegalArgumentException("Values must be added in "
+                        + "strictly increasing order: " + x + " after " + last);
+            }
+            last = x;
+            final int key = x >>> 16;
+            final char low = (char) x;
+            if (key != currentKey) {
+                flush();
+                currentKey = key;
+                currentArray = new char[16];
+            }
+            if (currentBitmap != null) {
+                currentBitmap[low >>> 6] |= 1L << low;
+            } else if (currentCard == ARRAY_MAX) {
+                currentBitmap = new long[BITMAP_WORDS];
+                orInto(currentBitmap, currentArray, currentCard);
+                currentBitmap[low >>> 6] |= 1L << low;
+                currentArray = null;
+            } else {
+                if (currentCard == currentArray.length) {
+                    currentArray = Arrays.copyOf(currentArray,
+                            Math.min(ARRAY_MAX, 2 * currentCard));
+                }
+                currentArray[currentCard] = low;
+            }
+            currentCard++;
+            return this;
+        }
+
+        /**
+         * Finish the container being filled, if any.
+         */
+        private void flush() {
+            if (currentCard == 0) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, 2 * size);
+                containers = Arrays.copyOf(containers, 2 * size);
+                cardinalities = Arrays.copyOf(cardinalities, 2 * size);
+            }
+            keys[size] = (char) currentKey;
+            containers[size] = currentBitmap != null ? currentBitmap
+                : Arrays.copyOf(currentArray, currentCard);
+            cardinalities[size] = currentCard;
+            size++;
+            currentArray = null;
+            currentBitmap = null;
+            currentCard = 0;
+        }
+
+        /**
+         * Produce the set of every value added so far.
+         *
+         * @return A new CompressedBitmap
+         */
+        public CompressedBitmap build() {
+            flush();
+            currentKey = -1;
+            return new CompressedBitmap(Arrays.copyOf(keys, size),
+                    Arrays.copyOf(containers, size),
+                    Arrays.copyOf(cardinalities, size));
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package parallel;
+
+import java.util.stream.IntStream;
+
+/**
+ * What to group students by in StudentQuery.groupBy: enrollment status, a
+ * name, or a fixed-width bucket of grade or age. Every key is mapped to a
+ * dense int so that per-group state can be kept in primitive arrays.
+ */
+public final class GroupKey {
+    /**
+     * Kind: enrollment status.
+     */
+    private static final int ENROLLMENT = 0;
+    /**
+     * Kind: first name.
+     */
+    private static final int FIRST_NAME = 1;
+    /**
+     * Kind: last name.
+     */
+    private static final int LAST_NAME = 2;
+    /**
+     * Kind: grade bucket.
+     */
+    private static final int GRADE_BUCKET = 3;
+    /**
+     * Kind: age band.
+     */
+    private static final int AGE_BAND = 4;
+    /**
+     * Largest number of buckets a bucketed key may produce.
+     */
+    private static final int MAX_BUCKETS = 1 << 20;
+
+    /**
+     * Which attribute is grouped on.
+     */
+    private final int kind;
+    /**
+     * Bucket width, for bucketed keys.
+     */
+    private final double width;
+
+    /**
+     * Constructor.
+     *
+     * @param setKind Which attribute is grouped on
+     * @param setWidth Bucket width, for bucketed keys
+     */
+    private GroupKey(final int setKind, final double setWidth) {
+        this.kind = setKind;
+        this.width = setWidth;
+    }
+
+    /**
+     * Group by enrollment status: group 0 is inactive students, group 1
+     * enrolled ones.
+     *
+     * @return The key
+     */
+    public static GroupKey enrollment() {
+        return new GroupKey(ENROLLMENT, 0);
+    }
+
+    /**
+     * Group by first name.
+     *
+     * @return The key
+     */
+    public static GroupKey firstName() {
+        return new GroupKey(FIRST_NAME, 0);
+    }
+
+    /**
+     * Group by last name.
+     *
+     * @return The key
+     */
+    public static GroupKey lastName() {
+        return new GroupKey(LAST_NAME, 0);
+    }
+
+    /**
+     * Group by grade, in buckets [k * width, (k + 1) * width).
+     *
+     * @param width Bucket width
+     * @return The key
+     */
+    public static GroupKey gradeBucket(final int width) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("width must be positive");
+        }
+        return new GroupKey(GRADE_BUCKET, width);
+    }
+
+    /**
+     * Group by age, in bands [k * width, (k + 1) * width). Students whose
+     * age is NaN belong to no band.
+     *
+     * @param width Band width, in years
+     * @return The key
+     */
+    public static GroupKey ageBand(final double width) {
+        if (!(width > 0) || Double.isInfinite(width)) {
+            throw new IllegalArgumentException("width must be positive");
+        }
+        return new GroupKey(AGE_BAND, width);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if ((o == null) || (o.getClass() != this.getClass())) {
+            return false;
+        }
+        final GroupKey k = (GroupKey) o;
+        return k.kind == kind && Double.compare(k.width, width) == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return 31 * kind + Double.hashCode(width);
+    }
+
+    /**
+     * Fix the mapping from rows of a table to dense group indexes.
+     *
+     * @param table The table to be grouped
+     * @return The mapping
+     */
+    Bound bind(final StudentTable table) {
+        switch (kind) {
+            case ENROLLMENT:
+                return new Bound(table, 0, 2);
+            case FIRST_NAME:
+                return new Bound(table, 0, table.firstNameDictionary().length);
+            case LAST_NAME:
+                return new Bound(table, 0, table.lastNameDictionary().length);
+            default:
+                final long[] span = IntStream.range(0, table.size()).parallel()
+                    .mapToLong(i -> bucketOf(table, i))
+                    .filter(b -> b != Long.MIN_VALUE)
+                    .collect(() -> new long[] {Long.MAX_VALUE, Long.MIN_VALUE},
+                            (acc, b) -> {
+                                acc[0] = Math.min(acc[0], b);
+                                acc[1] = Math.max(acc[1], b);
+                            }, (acc, other) -> {
+                                acc[0] = Math.min(acc[0], other[0]);
+                                acc[1] = Math.max(acc[1], other[1]);
+                            });
+                if (span[0] > span[1]) {
+                    return new Bound(table, 0, 0);
+                }
+                if (span[1] - span[0] >= MAX_BUCKETS) {
+                    throw new IllegalArgumentException("Grouping would produce "
+                            + "more than " + MAX_BUCKETS + " buckets");
+                }
+                return new Bound(table, span[0], (int) (span[1] - span[0] + 1));
+        }
+    }
+
+    /**
+     * Unshifted bucket of one row, for bucketed keys.
+     *
+     * @param table The table
+     * @param i Row index
+     * @return The bucket, or Long.MIN_VALUE if the row has none
+     */
+    private long bucketOf(final StudentTable table, final int i) {
+        if (kind == GRADE_BUCKET) {
+            return Math.floorDiv(table.gradeColumn()[i], (long) width);
+        }
+        final double age = table.ageColumn()[i];
+        if (Double.isNaN(age)) {
+            return Long.MIN_VALUE;
+        }
+        return (long) Math.max(-Long.MAX_VALUE,
+                Math.min(Long.MAX_VALUE, Math.floor(age / width)));
+    }
+
+    /**
+     * A GroupKey applied to one table.
+     */
+    final class Bound {
+        /**
+         * The table.
+         */
+        private final StudentTable table;
+        /**
+         * Bucket of group 0, for bucketed keys.
+         */
+        private final long origin;
+        /**
+         * Number of groups.
+         */
+        private final int size;
+
+        /**
+         * Constructor.
+         *
+         * @param setTable The table
+         * @param setOrigin Bucket of group 0, for bucketed keys
+         * @param setSize Number of groups
+         */
+        Bound(final StudentTable setTable, final long setOrigin,
+                final int setSize) {
+            this.table = setTable;
+            this.origin = setOrigin;
+            this.size = setSize;
+        }
+
+        /**
+         * Getter for the number of groups.
+         *
+         * @return Number of groups
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Group of one row.
+         *
+         * @param i Row index
+         * @return Group index, or -1 if the row belongs to no group
+         */
+        int groupOf(final int i) {
+            switch (kind) {
+                case ENROLLMENT:
+                    return table.isCurrent(i) ? 1 : 0;
+                case FIRST_NAME:
+                    return table.firstNameColumn()[i];
+                case LAST_NAME:
+                    return table.lastNameColumn()[i];
+                default:
+                    final long bucket = bucketOf(table, i);
+                    return bucket == Long.MIN_VALUE ? -1
+                        : (int) (bucket - origin);
+            }
+        }
+
+        /**
+         * Human-readable description of one group.
+         *
+         * @param g Group index
+         * @return The name, "inactive"/"current", or the bucket's lower
+         *         bound
+         */
+        String label(final int g) {
+            switch (kind) {
+                case ENROLLMENT:
+                    return g == 1 ? "current" : "inactive";
+                case FIRST_NAME:
+                    return table.firstNameDictionary()[g];
+                case LAST_NAME:
+                    return table.lastNameDictionary()[g];
+                case GRADE_BUCKET:
+                    return Long.toString((origin + g) * (long) width);
+                default:
+                    return Double.toString((origin + g) * width);
+            }
+        }
+    }
+}
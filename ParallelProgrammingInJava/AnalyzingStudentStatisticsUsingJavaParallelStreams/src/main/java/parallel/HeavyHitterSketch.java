@@ -0,0 +1,365 @@
+package parallel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded-memory summary of the most frequent strings in a stream (the
+ * Misra-Gries, or frequent-items, sketch). At most capacity counters are
+ * kept no matter how many distinct strings are offered. The count estimated
+ * for any string is never above its true count, and never below it by more
+ * than maxError(), which is at most n / (capacity + 1) after n offers.
+ *
+ * Sketches built over separate parts of a stream can be merged with the
+ * same guarantee over the combined stream, so each thread can build its own
+ * and the results be combined at the end. Instances are not thread-safe.
+ *
+ * Counters are stored relative to a global offset and grouped by value in
+ * increasing order, so that decrementing every counter is one increment of
+ * the offset plus dropping the lowest group. Each offer therefore costs
+ * amortized constant time however many counters are kept.
+ */
+public final class HeavyHitterSketch {
+    /**
+     * Largest number of counters kept.
+     */
+    private final int capacity;
+    /**
+     * Counter for each tracked string.
+     */
+    private final HashMap<String, Counter> counters;
+    /**
+     * Group with the smallest stored value, or null if nothing is tracked.
+     */
+    private Group lowest;
+    /**
+     * Amount subtracted from every stored value to give its count. Every
+     * stored value is above it.
+     */
+    private long offset = 0;
+    /**
+     * Number of strings offered, including those merged in.
+     */
+    private long total = 0;
+
+    /**
+     * The counter of one tracked string.
+     */
+    private static final class Counter {
+        /**
+         * The tracked string.
+         */
+        final String item;
+        /**
+         * Group holding every counter with the same stored value.
+         */
+        Group group;
+        /**
+         * Previous counter in the group, or null.
+         */
+        Counter prev;
+        /**
+         * Next counter in the group, or null.
+         */
+        Counter next;
+
+        /**
+         * Constructor.
+         *
+         * @param setItem The tracked string
+         */
+        Counter(final String setItem) {
+            this.item = setItem;
+        }
+    }
+
+    /**
+     * The counters sharing one stored value, linked in increasing order of
+     * that value.
+     */
+    private static final class Group {
+        /**
+         * Stored value of every counter in the group.
+         */
+        final long value;
+        /**
+         * Group with the next smaller value, or null.
+         */
+        Group prev;
+        /**
+         * Group with the next larger value, or null.
+         */
+        Group next;
+        /**
+         * First counter in the group; never null while the group is linked.
+         */
+        Counter first;
+
+        /**
+         * Constructor.
+         *
+         * @param setValue Stored value of every counter in the group
+         */
+        Group(final long setValue) {
+            this.value = setValue;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param setCapacity Largest number of counters kept, at least 1
+     */
+    public HeavyHitterSketch(final int setCapacity) {
+        if (setCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = setCapacity;
+        this.counters = new HashMap<String, Counter>(2 * setCapacity);
+    }
+
+    /**
+     * Create a sketch whose estimates are off by at most epsilon times the
+     * number of strings offered.
+     *
+     * @param epsilon Relative error bound, in (0, 1]
+     * @return An empty sketch with ceil(1 / epsilon) - 1 counters, at least 1
+     */
+    public static HeavyHitterSketch withError(final double epsilon) {
+        if (!(epsilon > 0 && epsilon <= 1)) {
+            throw new IllegalArgumentException("epsilon must be in (0, 1]");
+        }
+        return new HeavyHitterSketch(
+                Math.max(1, (int) Math.ceil(1.0 / epsilon) - 1));
+    }
+
+    /**
+     * Count one occurrence of a string.
+     *
+     * @param item The string
+     */
+    public void offer(final String item) {
+        total++;
+        final Counter counter = counters.get(item);
+        if (counter != null) {
+            final Group group = counter.group;
+            moveTo(counter, groupAfter(group, group.value + 1));
+        } else if (counters.size() < capacity) {
+            final Counter added = new Counter(item);
+            counters.put(item, added);
+            if (lowest == null || lowest.value != offset + 1) {
+                final Group group = new Group(offset + 1);
+                group.next = lowest;
+                if (lowest != null) {
+                    lowest.prev = group;
+                }
+                lowest = group;
+            }
+            attach(added, lowest);
+        } else {
+            /*
+             * Charge this occurrence, and one of every tracked string, to
+             * the error. This happens at most n / (capacity + 1) times.
+             */
+            offset++;
+            if (lowest.value == offset) {
+                for (Counter c = lowest.first; c != null; c = c.next) {
+                    counters.remove(c.item);
+                }
+                lowest = lowest.next;
+                if (lowest != null) {
+                    lowest.prev = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fold another sketch of the same capacity into this one.
+     *
+     * @param other A sketch over a disjoint part of the stream
+     */
+    public void merge(final HeavyHitterSketch other) {
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException("Capacities differ");
+        }
+        total += other.total;
+        final HashMap<String, Long> merged = counts();
+        for (Map.Entry<String, Long> entry : other.counts().entrySet()) {
+            merged.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+
+        final List<Map.Entry<String, Long>> entries =
+            new ArrayList<Map.Entry<String, Long>>(merged.entrySet());
+        Collections.sort(entries, Map.Entry.comparingByValue());
+        /*
+         * Subtract the (capacity + 1)-th largest count from every counter,
+         * which leaves at most capacity positive ones.
+         */
+        final long cut = entries.size() <= capacity ? 0
+            : entries.get(entries.size() - capacity - 1).getValue();
+
+        counters.clear();
+        lowest = null;
+        offset = 0;
+        Group highest = null;
+        for (Map.Entry<String, Long> entry : entries) {
+            final long value = entry.getValue() - cut;
+            if (value <= 0) {
+                continue;
+            }
+            if (highest == null || highest.value != value) {
+                final Group group = new Group(value);
+                if (highest == null) {
+                    lowest = group;
+                } else {
+                    highest.next = group;
+                    group.prev = highest;
+                }
+                highest = group;
+            }
+            final Counter counter = new Counter(entry.getKey());
+            counters.put(entry.getKey(), counter);
+            attach(counter, highest);
+        }
+    }
+
+    /**
+     * The count of every tracked string.
+     *
+     * @return A new map from string to count
+     */
+    private HashMap<String, Long> counts() {
+        final HashMap<String, Long> result =
+            new HashMap<String, Long>(2 * counters.size());
+        for (Counter counter : counters.values()) {
+            result.put(counter.item, counter.group.value - offset);
+        }
+        return result;
+    }
+
+    /**
+     * Find or create the group with a given value, just after another.
+     *
+     * @param group The group before it
+     * @param value Its value, which must be just above group.value
+     * @return The group
+     */
+    private static Group groupAfter(final Group group, final long value) {
+        if (group.next != null && group.next.value == value) {
+            return group.next;
+        }
+        final Group added = new Group(value);
+        added.prev = group;
+        added.next = group.next;
+        if (group.next != null) {
+            group.next.prev = added;
+        }
+        group.next = added;
+        return added;
+    }
+
+    /**
+     * Move a counter into another group, unlinking its old group if it is
+     * left empty.
+     *
+     * @param counter The counter
+     * @param group Its new group
+     */
+    private void moveTo(final Counter counter, final Group group) {
+        final Group old = counter.group;
+        if (counter.prev != null) {
+            counter.prev.next = counter.next;
+        } else {
+            old.first = counter.next;
+        }
+        if (counter.next != null) {
+            counter.next.prev = counter.prev;
+        }
+        if (old.first == null) {
+            if (old.prev != null) {
+                old.prev.next = old.next;
+            } else {
+                lowest = old.next;
+            }
+            if (old.next != null) {
+                old.next.prev = old.prev;
+            }
+        }
+        attach(counter, group);
+    }
+
+    /**
+     * Add a counter to the front of a group.
+     *
+     * @param counter The counter, not in any group
+     * @param group The group
+     */
+    private static void attach(final Counter counter, final Group group) {
+        counter.group = group;
+        counter.prev = null;
+        counter.next = group.first;
+        if (group.first != null) {
+            group.first.prev = counter;
+        }
+        group.first = counter;
+    }
+
+    /**
+     * Lower bound on the number of times a string was offered.
+     *
+     * @param item The string
+     * @return Estimated count, at most maxError() below the true count
+     */
+    public long estimate(final String item) {
+        final Counter counter = counters.get(item);
+        return counter == null ? 0 : counter.group.value - offset;
+    }
+
+    /**
+     * Largest amount by which estimate() can undercount any string.
+     *
+     * @return Error bound, at most getTotal() / (capacity + 1)
+     */
+    public long maxError() {
+        long kept = 0;
+        for (Counter counter : counters.values()) {
+            kept += counter.group.value - offset;
+        }
+        return (total - kept) / (capacity + 1);
+    }
+
+    /**
+     * Getter for the number of strings offered.
+     *
+     * @return Number of strings offered, including those merged in
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * The tracked string with the largest estimated count. Any string whose
+     * true count exceeds every other string's by more than maxError() is
+     * returned. Ties are broken by the natural order of the strings so that
+     * the answer does not depend on how the stream was split.
+     *
+     * @return The most frequent string, or null if none is tracked
+     */
+    public String mostFrequent() {
+        String best = null;
+        long bestCount = 0;
+        for (Counter counter : counters.values()) {
+            final long count = counter.group.value - offset;
+            if (count > bestCount
+                    || (count == bestCount && counter.item.compareTo(best) < 0)) {
+                best = counter.item;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+}
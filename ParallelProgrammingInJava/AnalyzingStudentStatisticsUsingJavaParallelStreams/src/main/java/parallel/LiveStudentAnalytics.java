@@ -0,0 +1,203 @@
+package parallel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maintains the statistics of StudentAnalytics incrementally as students are
+ * inserted, updated and removed, so that reading a statistic does not rescan
+ * the data. All methods may be called concurrently.
+ *
+ * The instance does not keep the students themselves: callers must only
+ * remove (or update away from) a Student they previously inserted.
+ */
+public final class LiveStudentAnalytics {
+    /**
+     * Sum of the ages of enrolled students.
+     */
+    private final DoubleAdder enrolledAgeSum = new DoubleAdder();
+    /**
+     * Number of enrolled students.
+     */
+    private final LongAdder enrolledCount = new LongAdder();
+    /**
+     * Number of failed students older than 20.
+     */
+    private final LongAdder failedCount = new LongAdder();
+    /**
+     * Number of inactive students with each first name. Names whose count
+     * drops to zero are removed.
+     */
+    private final ConcurrentHashMap<String, Long> inactiveNameCounts =
+        new ConcurrentHashMap<String, Long>();
+    /**
+     * Bumped after every change to inactiveNameCounts. Striped so that
+     * writers do not contend on it; since it only grows, an unchanged sum
+     * still means no change completed in between.
+     */
+    private final LongAdder nameVersion = new LongAdder();
+    /**
+     * The most common inactive first name and its count as last observed,
+     * or null if it must be recomputed by scanning inactiveNameCounts.
+     */
+    private final AtomicReference<NameCount> leader =
+        new AtomicReference<NameCount>();
+
+    /**
+     * A first name paired with its count.
+     */
+    private static final class NameCount {
+        /**
+         * The name.
+         */
+        final String name;
+        /**
+         * Number of inactive students with this name.
+         */
+        final long count;
+
+        /**
+         * Constructor.
+         *
+         * @param setName The name
+         * @param setCount Number of inactive students with this name
+         */
+        NameCount(final String setName, final long setCount) {
+            this.name = setName;
+            this.count = setCount;
+        }
+    }
+
+    /**
+     * Add a student to the statistics.
+     *
+     * @param s The student
+     */
+    public void insert(final Student s) {
+        apply(s, 1);
+    }
+
+    /**
+     * Remove a previously inserted student from the statistics.
+     *
+     * @param s The student, equal in every field to the inserted one
+     */
+    public void remove(final Student s) {
+        apply(s, -1);
+    }
+
+    /**
+     * Replace a previously inserted student with a new version of it.
+     *
+     * @param before The student as previously inserted
+     * @param after The student's new state
+     */
+    public void update(final Student before, final Student after) {
+        apply(before, -1);
+        apply(after, 1);
+    }
+
+    /**
+     * Add or remove one student's contribution to every statistic.
+     *
+     * @param s The student
+     * @param delta 1 to add, -1 to remove
+     */
+    private void apply(final Student s, final int delta) {
+        if (s.getIsCurrent()) {
+            enrolledAgeSum.add(delta * s.getAge());
+            enrolledCount.add(delta);
+            return;
+        }
+
+        if (s.getAge() > 20 && s.getGrade() < 65) {
+            failedCount.add(delta);
+        }
+
+        final String name = s.getFirstName();
+        final Long updated = inactiveNameCounts.compute(name, (k, count) -> {
+            final long next = (count == null ? 0 : count) + delta;
+            return next == 0 ? null : next;
+        });
+        nameVersion.increment();
+
+        if (delta > 0) {
+            final long count = updated;
+            NameCount current;
+            do {
+                current = leader.get();
+                if (current == null || count <= current.count) {
+                    return;
+                }
+            } while (!leader.compareAndSet(current,
+                        new NameCount(name, count)));
+        } else {
+            final NameCount current = leader.get();
+            if (current != null && current.name.equals(name)) {
+                leader.compareAndSet(current, null);
+            }
+        }
+    }
+
+    /**
+     * Average age of all actively enrolled students.
+     *
+     * @return Average age of enrolled students, or 0.0 if there are none
+     */
+    public double averageAgeOfEnrolledStudents() {
+        final long count = enrolledCount.sum();
+        return count == 0 ? 0.0 : enrolledAgeSum.sum() / (double) count;
+    }
+
+    /**
+     * Most common first name out of all students that are no longer active.
+     * This is usually answered from the maintained maximum; after the
+     * leading name loses a student it is recomputed from the name counts.
+     *
+     * @return Most common first name of inactive students, or null if there
+     *         are none
+     */
+    public String mostCommonFirstNameOfInactiveStudents() {
+        final NameCount current = leader.get();
+        if (current != null) {
+            final Long actual = inactiveNameCounts.get(current.name);
+            if (actual != null && actual == current.count) {
+                return current.name;
+            }
+        }
+
+        final long versionBefore = nameVersion.sum();
+        NameCount best = null;
+        for (Map.Entry<String, Long> entry : inactiveNameCounts.entrySet()) {
+            if (best == null || entry.getValue() > best.count) {
+                best = new NameCount(entry.getKey(), entry.getValue());
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        /*
+         * Only cache the scan if no count changed while it ran, and drop it
+         * again if one changed before writers could see it.
+         */
+        if (nameVersion.sum() == versionBefore
+                && leader.compareAndSet(current, best)
+                && nameVersion.sum() != versionBefore) {
+            leader.compareAndSet(best, null);
+        }
+        return best.name;
+    }
+
+    /**
+     * Number of students who have failed the course and are older than 20.
+     *
+     * @return Number of failed grades from students older than 20 years old.
+     */
+    public int countNumberOfFailedStudentsOlderThan20() {
+        return (int) failedCount.sum();
+    }
+}
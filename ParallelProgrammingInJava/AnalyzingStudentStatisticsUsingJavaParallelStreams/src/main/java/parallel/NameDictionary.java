@@ -0,0 +1,79 @@
+package parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns strings into dense int codes 0, 1, 2, ... in order of first
+ * appearance, so that per-name state can be kept in primitive arrays indexed
+ * by code instead of in hash maps keyed by String.
+ *
+ * Lookups of names that are already present take no lock, so a dictionary
+ * may be shared by threads loading data in parallel; only the first
+ * occurrence of each distinct name synchronizes.
+ */
+public final class NameDictionary {
+    /**
+     * Code of each name seen so far.
+     */
+    private final ConcurrentHashMap<String, Integer> codes =
+        new ConcurrentHashMap<String, Integer>();
+    /**
+     * Names indexed by code. Guarded by this.
+     */
+    private final List<String> names = new ArrayList<String>();
+
+    /**
+     * Look up the code of a name, assigning the next free code if it has
+     * not been seen before.
+     *
+     * @param name The name to encode
+     * @return The code of name
+     */
+    public int intern(final String name) {
+        final Integer code = codes.get(name);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            final Integer raced = codes.get(name);
+            if (raced != null) {
+                return raced;
+            }
+            final int next = names.size();
+            names.add(name);
+            codes.put(name, next);
+            return next;
+        }
+    }
+
+    /**
+     * Look up the code of a name without adding it.
+     *
+     * @param name The name to look up
+     * @return The code of name, or -1 if it has not been interned
+     */
+    public int codeOf(final String name) {
+        final Integer code = codes.get(name);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Number of distinct names interned so far.
+     *
+     * @return Number of codes assigned
+     */
+    public synchronized int size() {
+        return names.size();
+    }
+
+    /**
+     * Snapshot of the names interned so far.
+     *
+     * @return Names indexed by code
+     */
+    public synchronized String[] toArray() {
+        return names.toArray(new String[names.size()]);
+    }
+}
@@ -2,11 +2,19 @@ package parallel;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * A simple wrapper class for various analytics methods.
@@ -56,6 +64,40 @@ public final class StudentAnalytics {
                 .orElse(0.0);
     }
 
+    /**
+     * Compute the average age of all actively enrolled students in parallel
+     * over a columnar table. Only the ages of enrolled students are read,
+     * found by walking the set bits of the enrollment bitset.
+     *
+     * @param table Student data for the class, in columnar form.
+     * @return Average age of enrolled students, or 0.0 if there are none
+     */
+    public double averageAgeOfEnrolledStudentsColumnar(
+            final StudentTable table) {
+        final long[] current = table.currentColumn();
+        final double[] age = table.ageColumn();
+        final long count = Arrays.stream(current).parallel()
+                .map(Long::bitCount)
+                .sum();
+        if (count == 0) {
+            return 0.0;
+        }
+        final double ageSum = IntStream.range(0, current.length)
+                .parallel()
+                .mapToDouble(w -> {
+                    final int base = w << 6;
+                    long bits = current[w];
+                    double sum = 0.0;
+                    while (bits != 0) {
+                        sum += age[base + Long.numberOfTrailingZeros(bits)];
+                        bits &= bits - 1;
+                    }
+                    return sum;
+                })
+                .sum();
+        return ageSum / (double) count;
+    }
+
     /**
      * Sequentially computes the most common first name out of all students that
      * are no longer active in the class using loops.
@@ -119,6 +161,173 @@ public final class StudentAnalytics {
                 .orElse(null);
     }
 
+    /**
+     * Compute the most common first name out of all students that are no
+     * longer active in the class, in parallel over a columnar table. The
+     * table is split into one contiguous range per core, and each range
+     * counts names by dictionary code into its own int[] histogram, so the
+     * scan touches no shared state and allocates one small array per core.
+     * The histograms are summed at the end. Ties go to the name that appears
+     * first in the table.
+     *
+     * @param table Student data for the class, in columnar form.
+     * @return Most common first name of inactive students
+     */
+    public String mostCommonFirstNameOfInactiveStudentsColumnar(
+            final StudentTable table) {
+        final int[] firstName = table.firstNameColumn();
+        final String[] dictionary = table.firstNameDictionary();
+        final int nWords = StudentTable.wordCount(table.size());
+        final int nRanges = Math.max(1, Math.min(nWords,
+                Runtime.getRuntime().availableProcessors()));
+
+        final int[][] histograms = new int[nRanges][];
+        IntStream.range(0, nRanges).parallel().forEach(r -> {
+            final int[] histogram = new int[dictionary.length];
+            final int wordEnd = (int) ((long) nWords * (r + 1) / nRanges);
+            for (int w = (int) ((long) nWords * r / nRanges); w < wordEnd;
+                    w++) {
+                final int base = w << 6;
+                long bits = table.inactiveWord(w);
+                while (bits != 0) {
+                    histogram[firstName[base
+                            + Long.numberOfTrailingZeros(bits)]]++;
+                    bits &= bits - 1;
+                }
+            }
+            histograms[r] = histogram;
+        });
+
+        final int[] counts = new int[dictionary.length];
+        for (int[] histogram : histograms) {
+            for (int c = 0; c < counts.length; c++) {
+                counts[c] += histogram[c];
+            }
+        }
+        return dictionaryMode(counts, dictionary);
+    }
+
+    /**
+     * Approximate the most common first name out of all students that are
+     * no longer active in the class, in memory independent of the number of
+     * distinct names. Each task counts its share of the students into its
+     * own HeavyHitterSketch, and the sketches are merged at the end. If the
+     * true most common name leads every other name by more than epsilon
+     * times the number of inactive students, it is the name returned.
+     *
+     * @param studentArray Student data for the class.
+     * @param epsilon Error bound, as a fraction of the number of inactive
+     *        students; each task keeps about 1 / epsilon counters
+     * @return Most common first name of inactive students, approximately
+     */
+    public String mostCommonFirstNameOfInactiveStudentsApproximate(
+            final Student[] studentArray, final double epsilon) {
+        return Stream.of(studentArray)
+                .parallel()
+                .filter(s -> !s.getIsCurrent())
+                .map(Student::getFirstName)
+                .collect(() -> HeavyHitterSketch.withError(epsilon),
+                        HeavyHitterSketch::offer, HeavyHitterSketch::merge)
+                .mostFrequent();
+    }
+
+    /**
+     * Estimate the number of distinct first names among all students.
+     *
+     * @param studentArray Student data for the class.
+     * @return Approximate number of distinct first names
+     */
+    public long countDistinctFirstNamesApproximate(
+            final Student[] studentArray) {
+        return countDistinctApproximate(studentArray, s -> true,
+                Student::getFirstName);
+    }
+
+    /**
+     * Estimate the number of distinct last names among all students.
+     *
+     * @param studentArray Student data for the class.
+     * @return Approximate number of distinct last names
+     */
+    public long countDistinctLastNamesApproximate(
+            final Student[] studentArray) {
+        return countDistinctApproximate(studentArray, s -> true,
+                Student::getLastName);
+    }
+
+    /**
+     * Estimate the number of distinct first names among the students that
+     * match a filter. Each task records names into its own HyperLogLog
+     * sketch and the sketches are merged at the end, so memory stays at a
+     * few kilobytes per task however many names there are. The estimate is
+     * typically within 1% of the exact count.
+     *
+     * @param studentArray Student data for the class.
+     * @param filter Which students to count, e.g. s -&gt; !s.getIsCurrent()
+     * @return Approximate number of distinct first names
+     */
+    public long countDistinctFirstNamesApproximate(
+            final Student[] studentArray, final Predicate<Student> filter) {
+        return countDistinctApproximate(studentArray, filter,
+                Student::getFirstName);
+    }
+
+    /**
+     * Estimate the number of distinct last names among the students that
+     * match a filter, as countDistinctFirstNamesApproximate does for first
+     * names.
+     *
+     * @param studentArray Student data for the class.
+     * @param filter Which students to count, e.g. s -&gt; true
+     * @return Approximate number of distinct last names
+     */
+    public long countDistinctLastNamesApproximate(
+            final Student[] studentArray, final Predicate<Student> filter) {
+        return countDistinctApproximate(studentArray, filter,
+                Student::getLastName);
+    }
+
+    /**
+     * Estimate the number of distinct values of one name field among the
+     * students that match a filter.
+     *
+     * @param studentArray Student data for the class.
+     * @param filter Which students to count
+     * @param name The name field
+     * @return Approximate number of distinct values
+     */
+    private static long countDistinctApproximate(final Student[] studentArray,
+            final Predicate<Student> filter,
+            final Function<Student, String> name) {
+        return Stream.of(studentArray)
+                .parallel()
+                .filter(filter)
+                .map(name)
+                .collect(HyperLogLog::new, HyperLogLog::offer,
+                        HyperLogLog::merge)
+                .estimate();
+    }
+
+    /**
+     * Find the entry with the highest count in a histogram over dictionary
+     * codes.
+     *
+     * @param counts Count of each code
+     * @param dictionary Name of each code
+     * @return The name with the highest nonzero count, lowest code first on
+     *         ties, or null if every count is zero
+     */
+    static String dictionaryMode(final int[] counts,
+            final String[] dictionary) {
+        int best = -1;
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > 0 && (best < 0 || counts[c] > counts[best])) {
+                best = c;
+            }
+        }
+        return best < 0 ? null : dictionary[best];
+    }
+
     /**
      * Sequentially computes the number of students who have failed the course
      * who are also older than 20 years old. A failing grade is anything below a
@@ -160,4 +369,290 @@ public final class StudentAnalytics {
                 .mapToInt(s -> 1)
                 .sum();
     }
+
+    /**
+     * Compute the number of students who have failed the course who are
+     * also older than 20 years old, in parallel over a columnar table. Each
+     * task tests 64 rows at a time into a bit mask without branching on the
+     * data, then masks out enrolled students with one AND against the
+     * enrollment bitset.
+     *
+     * @param table Student data for the class, in columnar form.
+     * @return Number of failed grades from students older than 20 years old.
+     */
+    public int countNumberOfFailedStudentsOlderThan20Columnar(
+            final StudentTable table) {
+        final double[] age = table.ageColumn();
+        final int[] grade = table.gradeColumn();
+        final int size = table.size();
+        return IntStream.range(0, StudentTable.wordCount(size))
+                .parallel()
+                .map(w -> {
+                    final int base = w << 6;
+                    final int end = Math.min(base + 64, size);
+                    long matches = 0;
+                    for (int i = base; i < end; i++) {
+                        final long hit = (age[i] > 20 & grade[i] < 65) ? 1L : 0L;
+                        matches |= hit << (i - base);
+                    }
+                    return Long.bitCount(matches & table.inactiveWord(w));
+                })
+                .sum();
+    }
+
+    /**
+     * Compute the number of students who have failed the course who are
+     * also older than 20 years old from prebuilt bitmap indexes, by AND-ing
+     * the bitmaps of the three predicates and counting the result.
+     *
+     * @param index Bitmap indexes over the student data for the class.
+     * @return Number of failed grades from students older than 20 years old.
+     */
+    public int countNumberOfFailedStudentsOlderThan20Indexed(
+            final StudentBitmapIndex index) {
+        return (int) index.inactive()
+            .and(index.ageGreaterThan(20))
+            .and(index.gradeLessThan(65))
+            .cardinality();
+    }
+
+    /**
+     * Group the students that match a filter and compute the count, sum,
+     * average, minimum and maximum of one attribute per group, in parallel
+     * and without materializing any intermediate collection.
+     *
+     * @param table Student data for the class, in columnar form.
+     * @param filter Which students to include, e.g. StudentQuery.all()
+     * @param key What to group by
+     * @param measure The attribute to summarize
+     * @return The per-group statistics
+     */
+    public StudentGroups groupBy(final StudentTable table,
+            final StudentQuery filter, final GroupKey key,
+            final StudentGroups.Measure measure) {
+        return filter.groupBy(table, key, measure);
+    }
+
+    /**
+     * Compute all three statistics of this class in a single fused parallel
+     * pass over the students.
+     *
+     * @param studentArray Student data for the class.
+     * @return The three statistics
+     */
+    public StudentSummary summarizeParallelStream(
+            final Student[] studentArray) {
+        return summarizeParallelStream(studentArray,
+                Collections.<Collector<Student, ?, ?>>emptyList());
+    }
+
+    /**
+     * Compute all three statistics of this class, plus any number of extra
+     * aggregates, in a single fused parallel pass over the students. Each
+     * student is loaded once and fed to every statistic and aggregate, rather
+     * than each statistic making its own pass over studentArray.
+     *
+     * @param studentArray Student data for the class.
+     * @param aggregates Extra aggregates to compute in the same pass; their
+     *        results are read back with StudentSummary.get
+     * @return The three statistics and the result of every extra aggregate
+     */
+    public StudentSummary summarizeParallelStream(final Student[] studentArray,
+            final List<Collector<Student, ?, ?>> aggregates) {
+        return Stream.of(studentArray)
+                .parallel()
+                .collect(() -> new SummaryAccumulator(aggregates),
+                        SummaryAccumulator::accept,
+                        SummaryAccumulator::combine)
+                .finish();
+    }
+
+    /**
+     * Mutable state of one task of the fused pass in summarizeParallelStream.
+     * First names are coded in a table private to the task, so the pass
+     * shares no state between threads; the tables of two tasks are only
+     * reconciled when their states are combined, at a cost proportional to
+     * the number of distinct names rather than of students.
+     */
+    private static final class SummaryAccumulator {
+        /**
+         * Extra aggregates registered for the pass.
+         */
+        private final List<Collector<Student, ?, ?>> aggregates;
+        /**
+         * Accumulator function of each extra aggregate.
+         */
+        private final List<BiConsumer<Object, Student>> accumulators;
+        /**
+         * Partial result container of each extra aggregate.
+         */
+        private final Object[] containers;
+        /**
+         * Sum of the ages of enrolled students seen so far.
+         */
+        private double enrolledAgeSum = 0.0;
+        /**
+         * Number of enrolled students seen so far.
+         */
+        private long enrolledCount = 0;
+        /**
+         * Code of each first name seen so far by this task.
+         */
+        private final HashMap<String, Integer> firstNameCodes =
+            new HashMap<String, Integer>();
+        /**
+         * First names seen so far by this task, indexed by code.
+         */
+        private final List<String> firstNames = new ArrayList<String>();
+        /**
+         * Number of inactive students seen so far with each first name code.
+         */
+        private int[] inactiveNameCounts = new int[16];
+        /**
+         * Number of failed students older than 20 seen so far.
+         */
+        private int failedCount = 0;
+
+        /**
+         * Constructor.
+         *
+         * @param setAggregates Extra aggregates registered for the pass
+         */
+        SummaryAccumulator(
+                final List<Collector<Student, ?, ?>> setAggregates) {
+            this.aggregates = setAggregates;
+            this.accumulators = new ArrayList<BiConsumer<Object, Student>>(
+                    setAggregates.size());
+            this.containers = new Object[setAggregates.size()];
+            for (int i = 0; i < containers.length; i++) {
+                accumulators.add(accumulatorOf(setAggregates.get(i)));
+                containers[i] = setAggregates.get(i).supplier().get();
+            }
+        }
+
+        /**
+         * Feed one student to every statistic and aggregate.
+         *
+         * @param s The student
+         */
+        void accept(final Student s) {
+            if (s.getIsCurrent()) {
+                enrolledAgeSum += s.getAge();
+                enrolledCount++;
+            } else {
+                countInactive(s.getFirstName(), 1);
+                if (s.getAge() > 20 && s.getGrade() < 65) {
+                    failedCount++;
+                }
+            }
+            for (int i = 0; i < containers.length; i++) {
+                accumulators.get(i).accept(containers[i], s);
+            }
+        }
+
+        /**
+         * Merge the state of another task into this one.
+         *
+         * @param other State of a task that covered a disjoint set of
+         *        students
+         */
+        void combine(final SummaryAccumulator other) {
+            enrolledAgeSum += other.enrolledAgeSum;
+            enrolledCount += other.enrolledCount;
+            for (int c = 0; c < other.firstNames.size(); c++) {
+                countInactive(other.firstNames.get(c),
+                        other.inactiveNameCounts[c]);
+            }
+            failedCount += other.failedCount;
+            for (int i = 0; i < containers.length; i++) {
+                containers[i] = combinerOf(aggregates.get(i)).apply(
+                        containers[i], other.containers[i]);
+            }
+        }
+
+        /**
+         * Add to the number of inactive students with a first name, coding
+         * the name in this task's table if it is new.
+         *
+         * @param firstName The first name
+         * @param count Number of inactive students to add
+         */
+        private void countInactive(final String firstName, final int count) {
+            Integer code = firstNameCodes.get(firstName);
+            if (code == null) {
+                code = firstNames.size();
+                firstNameCodes.put(firstName, code);
+                firstNames.add(firstName);
+                if (code >= inactiveNameCounts.length) {
+                    inactiveNameCounts = Arrays.copyOf(inactiveNameCounts,
+                            2 * inactiveNameCounts.length);
+                }
+            }
+            inactiveNameCounts[code] += count;
+        }
+
+        /**
+         * Produce the final results.
+         *
+         * @return The summary of every student fed to this state
+         */
+        StudentSummary finish() {
+            final double averageAge = enrolledCount == 0 ? 0.0
+                : enrolledAgeSum / (double) enrolledCount;
+
+            final String[] dictionary =
+                firstNames.toArray(new String[firstNames.size()]);
+            final String mostCommon = dictionaryMode(
+                    Arrays.copyOf(inactiveNameCounts, dictionary.length),
+                    dictionary);
+
+            final IdentityHashMap<Collector<Student, ?, ?>, Object> results =
+                new IdentityHashMap<Collector<Student, ?, ?>, Object>();
+            for (int i = 0; i < containers.length; i++) {
+                results.put(aggregates.get(i),
+                        finisherOf(aggregates.get(i)).apply(containers[i]));
+            }
+            return new StudentSummary(averageAge, mostCommon, failedCount,
+                    results);
+        }
+
+        /**
+         * The accumulator of a collector, with its container type erased.
+         *
+         * @param c The collector
+         * @param <A> Container type of the collector
+         * @return The collector's accumulator
+         */
+        @SuppressWarnings("unchecked")
+        private static <A> BiConsumer<Object, Student> accumulatorOf(
+                final Collector<Student, A, ?> c) {
+            return (BiConsumer<Object, Student>) c.accumulator();
+        }
+
+        /**
+         * The combiner of a collector, with its container type erased.
+         *
+         * @param c The collector
+         * @param <A> Container type of the collector
+         * @return The collector's combiner
+         */
+        @SuppressWarnings("unchecked")
+        private static <A> BinaryOperator<Object> combinerOf(
+                final Collector<Student, A, ?> c) {
+            return (BinaryOperator<Object>) c.combiner();
+        }
+
+        /**
+         * The finisher of a collector, with its types erased.
+         *
+         * @param c The collector
+         * @param <A> Container type of the collector
+         * @return The collector's finisher
+         */
+        @SuppressWarnings("unchecked")
+        private static <A> Function<Object, Object> finisherOf(
+                final Collector<Student, A, ?> c) {
+            return (Function<Object, Object>) c.finisher();
+        }
+    }
 }
@@ -0,0 +1,347 @@
+package parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compressed bitmap indexes over a StudentTable: one bitmap of inactive
+ * students, and bit-sliced indexes of age and grade buckets. A bit-sliced
+ * index keeps, for each bit of the bucket number, one bitmap of the rows
+ * whose bucket has that bit set and one of the rows whose bucket has it
+ * clear. Every row thus appears in one bitmap per bit, so an index over B
+ * buckets costs O(n log B) rather than the O(n B) of one range-encoded
+ * bitmap per bucket. A conjunctive filter such as
+ * {@code !isCurrent && age > 20 && grade < 65} is answered by walking the
+ * bits of the bucket that straddles each range boundary from the highest
+ * down, which yields the rows in buckets entirely within the range and the
+ * rows of the straddling bucket with O(log B) ANDs and ORs. The latter are
+ * then checked against the column, and the resulting bitmaps are AND-ed and
+ * their bits counted.
+ *
+ * Values outside the bucketed range are folded into the first or last
+ * bucket. This keeps every answer exact, since those buckets are checked
+ * against the column whenever a range boundary falls inside them.
+ */
+public final class StudentBitmapIndex {
+    /**
+     * Number of rows covered by one container of a CompressedBitmap. The
+     * index is built in parallel over row ranges of this length so that
+     * every range produces its own containers.
+     */
+    private static final int CHUNK_ROWS = 1 << 16;
+
+    /**
+     * The indexed table.
+     */
+    private final StudentTable table;
+    /**
+     * Width of each age bucket, in years.
+     */
+    private final double ageWidth;
+    /**
+     * Width of each grade bucket.
+     */
+    private final int gradeWidth;
+    /**
+     * Number of age buckets.
+     */
+    private final int nAgeBuckets;
+    /**
+     * Number of grade buckets.
+     */
+    private final int nGradeBuckets;
+    /**
+     * Rows of students that are not currently enrolled.
+     */
+    private final CompressedBitmap inactive;
+    /**
+     * Age index: rows whose bucket has each bit set, then rows whose bucket
+     * has it clear.
+     */
+    private final CompressedBitmap[][] ageSlices;
+    /**
+     * Grade index: rows whose bucket has each bit set, then rows whose
+     * bucket has it clear.
+     */
+    private final CompressedBitmap[][] gradeSlices;
+
+    /**
+     * Constructor.
+     *
+     * @param setTable The indexed table
+     * @param setAgeWidth Width of each age bucket, in years
+     * @param setGradeWidth Width of each grade bucket
+     * @param setNAgeBuckets Number of age buckets
+     * @param setNGradeBuckets Number of grade buckets
+     * @param setInactive Rows of students that are not currently enrolled
+     * @param setAgeSlices Bit-sliced index of age buckets
+     * @param setGradeSlices Bit-sliced index of grade buckets
+     */
+    private StudentBitmapIndex(final StudentTable setTable,
+            final double setAgeWidth, final int setGradeWidth,
+            final int setNAgeBuckets, final int setNGradeBuckets,
+            final CompressedBitmap setInactive,
+            final CompressedBitmap[][] setAgeSlices,
+            final CompressedBitmap[][] setGradeSlices) {
+        this.table = setTable;
+        this.ageWidth = setAgeWidth;
+        this.gradeWidth = setGradeWidth;
+        this.nAgeBuckets = setNAgeBuckets;
+        this.nGradeBuckets = setNGradeBuckets;
+        this.inactive = setInactive;
+        this.ageSlices = setAgeSlices;
+        this.gradeSlices = setGradeSlices;
+    }
+
+    /**
+     * Build indexes with one-year age buckets and grade buckets of width 5.
+     *
+     * @param table The table to index
+     * @return The indexes
+     */
+    public static StudentBitmapIndex build(final StudentTable table) {
+        return build(table, 1.0, 5);
+    }
+
+    /**
+     * Build indexes over a table, in parallel over row ranges.
+     *
+     * @param table The table to index
+     * @param ageWidth Width of each age bucket, in years
+     * @param gradeWidth Width of each grade bucket
+     * @return The indexes
+     */
+    public static StudentBitmapIndex build(final StudentTable table,
+            final double ageWidth, final int gradeWidth) {
+        if (!(ageWidth > 0) || gradeWidth <= 0) {
+            throw new IllegalArgumentException("Bucket widths must be positive");
+        }
+        // NaN ages fall in bucket 0 and must not size the buckets
+        final double maxAge = Math.max(0, Arrays.stream(table.ageColumn(), 0,
+                    table.size()).parallel().filter(a -> !Double.isNaN(a))
+                .max().orElse(0));
+        final int maxGrade = Math.max(0, Arrays.stream(table.gradeColumn(), 0,
+                    table.size()).parallel().max().orElse(0));
+        final int nAgeBuckets = (int) Math.min(1024, maxAge / ageWidth) + 1;
+        final int nGradeBuckets = Math.min(1024, maxGrade / gradeWidth) + 1;
+        final int ageBits = sliceCount(nAgeBuckets);
+        final int gradeBits = sliceCount(nGradeBuckets);
+
+        final int nChunks = (table.size() + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        final List<CompressedBitmap[]> parts = IntStream.range(0, nChunks)
+            .parallel()
+            .mapToObj(c -> buildChunk(table, c * CHUNK_ROWS,
+                        Math.min(table.size(), (c + 1) * CHUNK_ROWS),
+                        ageWidth, nAgeBuckets, ageBits, gradeWidth,
+                        nGradeBuckets, gradeBits))
+            .collect(Collectors.toList());
+
+        final CompressedBitmap[][] ageSlices =
+            new CompressedBitmap[2][ageBits];
+        final CompressedBitmap[][] gradeSlices =
+            new CompressedBitmap[2][gradeBits];
+        for (int k = 0; k < ageBits; k++) {
+            ageSlices[0][k] = concatColumn(parts, 1 + k);
+            ageSlices[1][k] = concatColumn(parts, 1 + ageBits + k);
+        }
+        final int grades = 1 + 2 * ageBits;
+        for (int k = 0; k < gradeBits; k++) {
+            gradeSlices[0][k] = concatColumn(parts, grades + k);
+            gradeSlices[1][k] = concatColumn(parts, grades + gradeBits + k);
+        }
+        return new StudentBitmapIndex(table, ageWidth, gradeWidth,
+                nAgeBuckets, nGradeBuckets, concatColumn(parts, 0), ageSlices,
+                gradeSlices);
+    }
+
+    /**
+     * Number of bits needed to number a set of buckets.
+     *
+     * @param nBuckets Number of buckets
+     * @return Number of bit slices, at least 1
+     */
+    private static int sliceCount(final int nBuckets) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(nBuckets - 1));
+    }
+
+    /**
+     * Build every bitmap over one range of rows.
+     *
+     * @param table The table to index
+     * @param start First row, inclusive
+     * @param end Last row, exclusive
+     * @param ageWidth Width of each age bucket
+     * @param nAgeBuckets Number of age buckets
+     * @param ageBits Number of bit slices of age buckets
+     * @param gradeWidth Width of each grade bucket
+     * @param nGradeBuckets Number of grade buckets
+     * @param gradeBits Number of bit slices of grade buckets
+     * @return The inactive bitmap, then the set and clear slices of age
+     *         buckets, then those of grade buckets
+     */
+    private static CompressedBitmap[] buildChunk(final StudentTable table,
+            final int start, final int end, final double ageWidth,
+            final int nAgeBuckets, final int ageBits, final int gradeWidth,
+            final int nGradeBuckets, final int gradeBits) {
+        final double[] age = table.ageColumn();
+        final int[] grade = table.gradeColumn();
+        final int grades = 1 + 2 * ageBits;
+        final CompressedBitmap.Builder[] builders =
+            new CompressedBitmap.Builder[grades + 2 * gradeBits];
+        for (int b = 0; b < builders.length; b++) {
+            builders[b] = new CompressedBitmap.Builder();
+        }
+
+        for (int i = start; i < end; i++) {
+            if (!table.isCurrent(i)) {
+                builders[0].add(i);
+            }
+            final int a = ageBucket(age[i], ageWidth, nAgeBuckets);
+            for (int k = 0; k < ageBits; k++) {
+                builders[1 + ((a >>> k & 1) == 1 ? k : ageBits + k)].add(i);
+            }
+            final int g = gradeBucket(grade[i], gradeWidth, nGradeBuckets);
+            for (int k = 0; k < gradeBits; k++) {
+                builders[grades + ((g >>> k & 1) == 1 ? k : gradeBits + k)]
+                    .add(i);
+            }
+        }
+
+        final CompressedBitmap[] result = new CompressedBitmap[builders.length];
+        for (int b = 0; b < builders.length; b++) {
+            result[b] = builders[b].build();
+        }
+        return result;
+    }
+
+    /**
+     * Split the rows of a bit-sliced index around one bucket, walking the
+     * bits of its number from the highest down.
+     *
+     * @param slices Rows whose bucket has each bit set, then rows whose
+     *        bucket has it clear
+     * @param edge The bucket to split around
+     * @param above true for the rows in higher buckets, false for lower
+     * @return The rows in higher or lower buckets, then the rows in edge
+     */
+    private static CompressedBitmap[] splitAt(
+            final CompressedBitmap[][] slices, final int edge,
+            final boolean above) {
+        CompressedBitmap beyond = new CompressedBitmap.Builder().build();
+        CompressedBitmap equal = null;
+        for (int k = slices[0].length - 1; k >= 0; k--) {
+            final boolean set = (edge >>> k & 1) == 1;
+            // Rows agreeing with edge on every higher bit and beating it here
+            if (set != above) {
+                final CompressedBitmap[] side = slices[above ? 0 : 1];
+                beyond = beyond.or(equal == null ? side[k]
+                        : equal.and(side[k]));
+            }
+            final CompressedBitmap same = slices[set ? 0 : 1][k];
+            equal = equal == null ? same : equal.and(same);
+        }
+        return new CompressedBitmap[] {beyond, equal};
+    }
+
+    /**
+     * Join one bitmap across every row range.
+     *
+     * @param parts The bitmaps built for each row range, in row order
+     * @param column Which bitmap of each part to join
+     * @return A bitmap covering every row
+     */
+    private static CompressedBitmap concatColumn(
+            final List<CompressedBitmap[]> parts, final int column) {
+        final List<CompressedBitmap> pieces =
+            new ArrayList<CompressedBitmap>(parts.size());
+        for (CompressedBitmap[] part : parts) {
+            pieces.add(part[column]);
+        }
+        return CompressedBitmap.concat(pieces);
+    }
+
+    /**
+     * Age bucket of a value, folding out-of-range values into the first or
+     * last bucket.
+     *
+     * @param age An age, or a bound on ages
+     * @param width Width of each bucket
+     * @param nBuckets Number of buckets
+     * @return Bucket index
+     */
+    private static int ageBucket(final double age, final double width,
+            final int nBuckets) {
+        final double b = Math.floor(age / width);
+        if (!(b > 0)) {
+            return 0;
+        }
+        return (int) Math.min(nBuckets - 1, b);
+    }
+
+    /**
+     * Grade bucket of a value, folding out-of-range values into the first or
+     * last bucket.
+     *
+     * @param grade A grade, or a bound on grades
+     * @param width Width of each bucket
+     * @param nBuckets Number of buckets
+     * @return Bucket index
+     */
+    private static int gradeBucket(final int grade, final int width,
+            final int nBuckets) {
+        return Math.max(0, Math.min(nBuckets - 1, Math.floorDiv(grade, width)));
+    }
+
+    /**
+     * Rows of students that are not currently enrolled.
+     *
+     * @return A bitmap of rows
+     */
+    public CompressedBitmap inactive() {
+        return inactive;
+    }
+
+    /**
+     * Rows of students strictly older than a bound.
+     *
+     * @param bound The age bound
+     * @return A bitmap of rows
+     */
+    public CompressedBitmap ageGreaterThan(final double bound) {
+        final CompressedBitmap.Builder partial = new CompressedBitmap.Builder();
+        if (Double.isNaN(bound)) {
+            return partial.build();
+        }
+        final double[] age = table.ageColumn();
+        final CompressedBitmap[] split = splitAt(ageSlices,
+                ageBucket(bound, ageWidth, nAgeBuckets), true);
+        split[1].forEach(i -> {
+            if (age[i] > bound) {
+                partial.add(i);
+            }
+        });
+        return partial.build().or(split[0]);
+    }
+
+    /**
+     * Rows of students with a grade strictly below a bound.
+     *
+     * @param bound The grade bound
+     * @return A bitmap of rows
+     */
+    public CompressedBitmap gradeLessThan(final int bound) {
+        final int[] grade = table.gradeColumn();
+        final CompressedBitmap[] split = splitAt(gradeSlices,
+                gradeBucket(bound, gradeWidth, nGradeBuckets), false);
+        final CompressedBitmap.Builder partial = new CompressedBitmap.Builder();
+        split[1].forEach(i -> {
+            if (grade[i] < bound) {
+                partial.add(i);
+            }
+        });
+        return partial.build().or(split[0]);
+    }
+}
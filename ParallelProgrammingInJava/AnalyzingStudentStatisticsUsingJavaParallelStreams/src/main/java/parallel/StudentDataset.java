@@ -0,0 +1,147 @@
+package parallel;
+
+import java.util.Arrays;
+
+/**
+ * A mutable collection of students that readers see as a series of
+ * immutable, numbered snapshots. Every change publishes a new snapshot with
+ * the next version number, so a result computed from one snapshot can be
+ * reused for as long as the version is unchanged.
+ *
+ * Changes copy the student array, which suits data that is read far more
+ * often than it is written. All methods may be called concurrently.
+ */
+public final class StudentDataset {
+    /**
+     * The current snapshot.
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * One immutable version of the dataset.
+     */
+    public static final class Snapshot {
+        /**
+         * Version number, increasing with every change.
+         */
+        private final long version;
+        /**
+         * The students. Never modified.
+         */
+        private final Student[] students;
+        /**
+         * Columnar copy of students, built on first use.
+         */
+        private volatile StudentTable table;
+
+        /**
+         * Constructor.
+         *
+         * @param setVersion Version number
+         * @param setStudents The students, which must not be modified
+         */
+        Snapshot(final long setVersion, final Student[] setStudents) {
+            this.version = setVersion;
+            this.students = setStudents;
+        }
+
+        /**
+         * Getter for the version number.
+         *
+         * @return Version number, increasing with every change
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * The students in this version. Callers must not modify the array.
+         *
+         * @return The students
+         */
+        public Student[] getStudents() {
+            return students;
+        }
+
+        /**
+         * The students in this version in columnar form, built on first
+         * use and then shared. Concurrent first callers wait for a single
+         * build rather than each converting the students.
+         *
+         * @return The columnar table
+         */
+        public StudentTable getTable() {
+            StudentTable t = table;
+            if (t == null) {
+                synchronized (this) {
+                    t = table;
+                    if (t == null) {
+                        t = StudentTable.fromStudents(students);
+                        table = t;
+                    }
+                }
+            }
+            return t;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param studentArray Initial students; the array is copied
+     */
+    public StudentDataset(final Student[] studentArray) {
+        this.snapshot = new Snapshot(0, studentArray.clone());
+    }
+
+    /**
+     * The current snapshot.
+     *
+     * @return The latest version of the dataset
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * The current version number.
+     *
+     * @return Version number of the latest snapshot
+     */
+    public long version() {
+        return snapshot.version;
+    }
+
+    /**
+     * Replace every student.
+     *
+     * @param studentArray The new students; the array is copied
+     */
+    public synchronized void replaceAll(final Student[] studentArray) {
+        snapshot = new Snapshot(snapshot.version + 1, studentArray.clone());
+    }
+
+    /**
+     * Replace one student.
+     *
+     * @param index Position of the student
+     * @param student The new state of that student
+     */
+    public synchronized void set(final int index, final Student student) {
+        final Student[] students = snapshot.students.clone();
+        students[index] = student;
+        snapshot = new Snapshot(snapshot.version + 1, students);
+    }
+
+    /**
+     * Append students.
+     *
+     * @param added The students to add
+     */
+    public synchronized void addAll(final Student... added) {
+        final Student[] old = snapshot.students;
+        final Student[] students = Arrays.copyOf(old, old.length + added.length);
+        System.arraycopy(added, 0, students, old.length, added.length);
+        snapshot = new Snapshot(snapshot.version + 1, students);
+    }
+}
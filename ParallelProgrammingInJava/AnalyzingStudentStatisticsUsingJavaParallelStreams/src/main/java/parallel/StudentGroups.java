@@ -0,0 +1,163 @@
+package parallel;
+
+/**
+ * The result of StudentQuery.groupBy: for each group, the number of
+ * matching students and the sum, average, minimum and maximum of one
+ * measured attribute over them. Groups are numbered 0 to size() - 1.
+ */
+public final class StudentGroups {
+    /**
+     * The attribute summarized per group.
+     */
+    public enum Measure {
+        /**
+         * Student age.
+         */
+        AGE,
+        /**
+         * Student grade.
+         */
+        GRADE
+    }
+
+    /**
+     * Description of each group.
+     */
+    private final String[] labels;
+    /**
+     * Number of students in each group.
+     */
+    private final long[] count;
+    /**
+     * Sum of the measure in each group.
+     */
+    private final double[] sum;
+    /**
+     * Smallest value of the measure in each group.
+     */
+    private final double[] min;
+    /**
+     * Largest value of the measure in each group.
+     */
+    private final double[] max;
+
+    /**
+     * Constructor. The arrays are used as-is, not copied.
+     *
+     * @param setLabels Description of each group
+     * @param setCount Number of students in each group
+     * @param setSum Sum of the measure in each group
+     * @param setMin Smallest value of the measure in each group
+     * @param setMax Largest value of the measure in each group
+     */
+    StudentGroups(final String[] setLabels, final long[] setCount,
+            final double[] setSum, final double[] setMin,
+            final double[] setMax) {
+        this.labels = setLabels;
+        this.count = setCount;
+        this.sum = setSum;
+        this.min = setMin;
+        this.max = setMax;
+    }
+
+    /**
+     * Number of groups, including empty ones.
+     *
+     * @return Number of groups
+     */
+    public int size() {
+        return labels.length;
+    }
+
+    /**
+     * Find a group by its label.
+     *
+     * @param label A label as returned by label()
+     * @return The group index, or -1 if there is no such group
+     */
+    public int indexOf(final String label) {
+        for (int g = 0; g < labels.length; g++) {
+            if (labels[g].equals(label)) {
+                return g;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Description of a group: a name, "inactive" or "current", or the lower
+     * bound of a bucket.
+     *
+     * @param g Group index
+     * @return The label
+     */
+    public String label(final int g) {
+        return labels[g];
+    }
+
+    /**
+     * Number of matching students in a group.
+     *
+     * @param g Group index
+     * @return Number of students
+     */
+    public long count(final int g) {
+        return count[g];
+    }
+
+    /**
+     * Sum of the measure over a group.
+     *
+     * @param g Group index
+     * @return The sum, or 0.0 for an empty group
+     */
+    public double sum(final int g) {
+        return sum[g];
+    }
+
+    /**
+     * Average of the measure over a group.
+     *
+     * @param g Group index
+     * @return The average, or 0.0 for an empty group
+     */
+    public double average(final int g) {
+        return count[g] == 0 ? 0.0 : sum[g] / count[g];
+    }
+
+    /**
+     * Smallest value of the measure in a group.
+     *
+     * @param g Group index
+     * @return The minimum, or +Infinity for an empty group
+     */
+    public double min(final int g) {
+        return min[g];
+    }
+
+    /**
+     * Largest value of the measure in a group.
+     *
+     * @param g Group index
+     * @return The maximum, or -Infinity for an empty group
+     */
+    public double max(final int g) {
+        return max[g];
+    }
+
+    /**
+     * The largest group.
+     *
+     * @return Index of the group with the most students, lowest index on
+     *         ties, or -1 if every group is empty
+     */
+    public int largest() {
+        int best = -1;
+        for (int g = 0; g < count.length; g++) {
+            if (count[g] > 0 && (best < 0 || count[g] > count[best])) {
+                best = g;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,966 @@
+package parallel;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Loads student datasets from disk, in parallel.
+ *
+ * The text format is one student per line as
+ * {@code firstName,lastName,age,grade,isCurrent}, with an optional header
+ * line equal to HEADER. Names are taken verbatim and may not contain commas
+ * or line breaks. The file is split into byte ranges that start just after
+ * a newline, and each range is parsed straight from a memory mapping: numbers
+ * are parsed from the bytes, and names are looked up in a per-task cache
+ * keyed on their bytes, so only the first occurrence of each distinct name
+ * in a range allocates a String.
+ *
+ * The binary format holds a StudentTable as-is: a header, both name
+ * dictionaries and then each column, in the byte order of the machine that
+ * wrote it, which the header records. Reloading it on a machine of the same
+ * byte order bulk-copies each column out of a memory mapping with no parsing
+ * or byte swapping; a file from a machine of the other order is still read
+ * correctly, at the cost of swapping every value.
+ */
+public final class StudentLoader {
+    /**
+     * Optional first line of a CSV file.
+     */
+    public static final String HEADER = "firstName,lastName,age,grade,isCurrent";
+
+    /**
+     * Identifies the binary format ("STUD").
+     */
+    private static final int MAGIC = 0x53545544;
+    /**
+     * Version of the binary format.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Bytes in the binary header: magic, version, size, first and last
+     * dictionary lengths, column byte order, and the byte length of the
+     * dictionaries. The header itself is big-endian.
+     */
+    private static final int BINARY_HEADER_BYTES = 32;
+    /**
+     * Longest byte range mapped at once.
+     */
+    private static final int MAX_MAPPING = 1 << 30;
+    /**
+     * Header value for big-endian columns.
+     */
+    private static final int BIG_ENDIAN = 0;
+    /**
+     * Header value for little-endian columns.
+     */
+    private static final int LITTLE_ENDIAN = 1;
+    /**
+     * Most significant digits of a decimal parsed without Double.parseDouble.
+     * Double.toString never writes more than 17.
+     */
+    private static final int MAX_FAST_DIGITS = 17;
+    /**
+     * Largest integer below which every long is an exact double.
+     */
+    private static final long EXACT_LONG_LIMIT = 1L << 53;
+    /**
+     * Powers of ten that are exact doubles.
+     */
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+        1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+    /**
+     * Powers of five matching POW10, as exact longs.
+     */
+    private static final long[] POW5 = new long[POW10.length];
+
+    static {
+        POW5[0] = 1;
+        for (int k = 1; k < POW5.length; k++) {
+            POW5[k] = 5 * POW5[k - 1];
+        }
+    }
+
+    /**
+     * Utility class.
+     */
+    private StudentLoader() {
+    }
+
+    /**
+     * Write students as CSV, with a header line.
+     *
+     * @param file Destination file
+     * @param studentArray The students
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeCsv(final Path file, final Student[] studentArray)
+            throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file,
+                    StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.write('\n');
+            for (Student s : studentArray) {
+                out.write(s.getFirstName());
+                out.write(',');
+                out.write(s.getLastName());
+                out.write(',');
+                out.write(Double.toString(s.getAge()));
+                out.write(',');
+                out.write(Integer.toString(s.getGrade()));
+                out.write(',');
+                out.write(Boolean.toString(s.getIsCurrent()));
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Load a CSV file into a columnar table, in parallel.
+     *
+     * @param file Source file
+     * @return The students, in file order
+     * @throws IOException If the file cannot be read or is malformed
+     */
+    public static StudentTable loadCsv(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.READ)) {
+            final long[] bounds = splitLines(channel);
+            final int nRanges = bounds.length - 1;
+            final NameDictionary firstNames = new NameDictionary();
+            final NameDictionary lastNames = new NameDictionary();
+            final MappedByteBuffer[] mappings = new MappedByteBuffer[nRanges];
+            for (int r = 0; r < nRanges; r++) {
+                mappings[r] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        bounds[r], bounds[r + 1] - bounds[r]);
+            }
+
+            final ParsedRange[] ranges = new ParsedRange[nRanges];
+            try {
+                IntStream.range(0, nRanges).parallel().forEach(r ->
+                        ranges[r] = parseRange(mappings[r], bounds[r],
+                            new NameCache(firstNames),
+                            new NameCache(lastNames)));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return assemble(ranges, firstNames.toArray(), lastNames.toArray());
+        }
+    }
+
+    /**
+     * Load a CSV file into an array of students, in parallel.
+     *
+     * @param file Source file
+     * @return The students, in file order
+     * @throws IOException If the file cannot be read or is malformed
+     */
+    public static Student[] loadStudents(final Path file) throws IOException {
+        final StudentTable table = loadCsv(file);
+        final Student[] students = new Student[table.size()];
+        IntStream.range(0, students.length).parallel()
+            .forEach(i -> students[i] = table.getStudent(i));
+        return students;
+    }
+
+    /**
+     * Write a table in the binary format.
+     *
+     * @param file Destination file
+     * @param table The table
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeBinary(final Path file, final StudentTable table)
+            throws IOException {
+        final byte[][] first = encode(table.firstNameDictionary());
+        final byte[][] last = encode(table.lastNameDictionary());
+        long dictionaryBytes = 0;
+        for (byte[] name : first) {
+            dictionaryBytes += Integer.BYTES + name.length;
+        }
+        for (byte[] name : last) {
+            dictionaryBytes += Integer.BYTES + name.length;
+        }
+        if (BINARY_HEADER_BYTES + dictionaryBytes > MAX_MAPPING) {
+            throw new IOException("Name dictionaries are too large");
+        }
+        final int n = table.size();
+        final long columnStart = align8(BINARY_HEADER_BYTES + dictionaryBytes);
+
+        try (RandomAccessFile out = new RandomAccessFile(file.toFile(), "rw")) {
+            out.setLength(columnStart + columnBytes(n));
+            final FileChannel channel = out.getChannel();
+            final ByteBuffer head = channel.map(FileChannel.MapMode.READ_WRITE,
+                    0, BINARY_HEADER_BYTES + dictionaryBytes);
+            final ByteOrder order = ByteOrder.nativeOrder();
+            head.putInt(MAGIC).putInt(VERSION).putInt(n)
+                .putInt(first.length).putInt(last.length)
+                .putInt(order == ByteOrder.BIG_ENDIAN ? BIG_ENDIAN
+                        : LITTLE_ENDIAN)
+                .putLong(dictionaryBytes);
+            for (byte[] name : first) {
+                head.putInt(name.length).put(name);
+            }
+            for (byte[] name : last) {
+                head.putInt(name.length).put(name);
+            }
+
+            long offset = columnStart;
+            final double[] age = table.ageColumn();
+            for (int i = 0; i < n; i += MAX_MAPPING / Double.BYTES) {
+                final int len = Math.min(n - i, MAX_MAPPING / Double.BYTES);
+                channel.map(FileChannel.MapMode.READ_WRITE, offset,
+                        (long) len * Double.BYTES).order(order)
+                    .asDoubleBuffer().put(age, i, len);
+                offset += (long) len * Double.BYTES;
+            }
+            final long[] current = table.currentColumn();
+            final int words = StudentTable.wordCount(n);
+            for (int i = 0; i < words; i += MAX_MAPPING / Long.BYTES) {
+                final int len = Math.min(words - i, MAX_MAPPING / Long.BYTES);
+                channel.map(FileChannel.MapMode.READ_WRITE, offset,
+                        (long) len * Long.BYTES).order(order)
+                    .asLongBuffer().put(current, i, len);
+                offset += (long) len * Long.BYTES;
+            }
+            for (int[] column : new int[][] {table.gradeColumn(),
+                    table.firstNameColumn(), table.lastNameColumn()}) {
+                for (int i = 0; i < n; i += MAX_MAPPING / Integer.BYTES) {
+                    final int len = Math.min(n - i,
+                            MAX_MAPPING / Integer.BYTES);
+                    channel.map(FileChannel.MapMode.READ_WRITE, offset,
+                            (long) len * Integer.BYTES).order(order)
+                        .asIntBuffer().put(column, i, len);
+                    offset += (long) len * Integer.BYTES;
+                }
+            }
+        }
+    }
+
+    /**
+     * Load a table written by writeBinary.
+     *
+     * @param file Source file
+     * @return The table
+     * @throws IOException If the file cannot be read or is not in the
+     *         binary format
+     */
+    public static StudentTable loadBinary(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.READ)) {
+            if (channel.size() < BINARY_HEADER_BYTES) {
+                throw new IOException(file + " is not a student table");
+            }
+            final ByteBuffer header = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, BINARY_HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(file + " is not a student table");
+            }
+            final int n = header.getInt();
+            final int nFirst = header.getInt();
+            final int nLast = header.getInt();
+            final int orderCode = header.getInt();
+            final long dictionaryBytes = header.getLong();
+            final long columnStart =
+                align8(BINARY_HEADER_BYTES + dictionaryBytes);
+            if (n < 0 || nFirst < 0 || nLast < 0 || dictionaryBytes < 0
+                    || dictionaryBytes > MAX_MAPPING
+                    || (long) nFirst + nLast > dictionaryBytes / Integer.BYTES
+                    || (orderCode != BIG_ENDIAN && orderCode != LITTLE_ENDIAN)
+                    || channel.size() != columnStart + columnBytes(n)) {
+                throw new IOException(file + " is truncated or corrupt");
+            }
+            final ByteOrder order = orderCode == BIG_ENDIAN
+                ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+
+            final ByteBuffer names = channel.map(FileChannel.MapMode.READ_ONLY,
+                    BINARY_HEADER_BYTES, dictionaryBytes);
+            final String[] first = decode(names, nFirst, file);
+            final String[] last = decode(names, nLast, file);
+            if (names.hasRemaining()) {
+                throw new IOException(file + " is truncated or corrupt");
+            }
+
+            final double[] age = new double[n];
+            final long[] current = new long[StudentTable.wordCount(n)];
+            final int[] grade = new int[n];
+            final int[] firstName = new int[n];
+            final int[] lastName = new int[n];
+            long offset = columnStart;
+            for (int i = 0; i < n; i += MAX_MAPPING / Double.BYTES) {
+                final int len = Math.min(n - i, MAX_MAPPING / Double.BYTES);
+                channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        (long) len * Double.BYTES).order(order)
+                    .asDoubleBuffer().get(age, i, len);
+                offset += (long) len * Double.BYTES;
+            }
+            for (int i = 0; i < current.length; i += MAX_MAPPING / Long.BYTES) {
+                final int len = Math.min(current.length - i,
+                        MAX_MAPPING / Long.BYTES);
+                channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        (long) len * Long.BYTES).order(order)
+                    .asLongBuffer().get(current, i, len);
+                offset += (long) len * Long.BYTES;
+            }
+            for (int[] column : new int[][] {grade, firstName, lastName}) {
+                for (int i = 0; i < n; i += MAX_MAPPING / Integer.BYTES) {
+                    final int len = Math.min(n - i,
+                            MAX_MAPPING / Integer.BYTES);
+                    channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                            (long) len * Integer.BYTES).order(order)
+                        .asIntBuffer().get(column, i, len);
+                    offset += (long) len * Integer.BYTES;
+                }
+            }
+            return new StudentTable(n, age, grade, current, firstName,
+                    lastName, first, last);
+        }
+    }
+
+    /**
+     * Bytes taken by the columns of a table in the binary format.
+     *
+     * @param n Number of students
+     * @return Column bytes
+     */
+    private static long columnBytes(final int n) {
+        return (long) n * (Double.BYTES + 3 * Integer.BYTES)
+            + (long) StudentTable.wordCount(n) * Long.BYTES;
+    }
+
+    /**
+     * Round up to a multiple of 8.
+     *
+     * @param x A non-negative value
+     * @return The smallest multiple of 8 not below x
+     */
+    private static long align8(final long x) {
+        return (x + 7) & ~7L;
+    }
+
+    /**
+     * UTF-8 encode each name.
+     *
+     * @param names The names
+     * @return The encoded names
+     */
+    private static byte[][] encode(final String[] names) {
+        final byte[][] encoded = new byte[names.length][];
+        for (int c = 0; c < names.length; c++) {
+            encoded[c] = names[c].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    /**
+     * Read length-prefixed UTF-8 names.
+     *
+     * @param buf Buffer positioned at the first name
+     * @param count Number of names
+     * @param file Path of the file, for the error message
+     * @return The names
+     * @throws IOException If a name length runs past the end of buf
+     */
+    private static String[] decode(final ByteBuffer buf, final int count,
+            final Path file) throws IOException {
+        final String[] names = new String[count];
+        for (int c = 0; c < count; c++) {
+            final int length = buf.remaining() < Integer.BYTES ? -1
+                : buf.getInt();
+            if (length < 0 || length > buf.remaining()) {
+                throw new IOException(file + " is truncated or corrupt");
+            }
+            final byte[] bytes = new byte[length];
+            buf.get(bytes);
+            names[c] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    /**
+     * Split a CSV file into byte ranges that each start at the beginning of
+     * a line, skipping the header line if present.
+     *
+     * @param channel The file
+     * @return Range boundaries: range r is [bounds[r], bounds[r + 1])
+     * @throws IOException If the file cannot be read, or a single line is
+     *         longer than MAX_MAPPING
+     */
+    private static long[] splitLines(final FileChannel channel)
+            throws IOException {
+        final long length = channel.size();
+        long start = 0;
+        final byte[] header = HEADER.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer head = ByteBuffer.allocate(header.length + 2);
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            continue;
+        }
+        head.flip();
+        if (head.remaining() >= header.length
+                && ByteBuffer.wrap(header).equals(
+                    ((ByteBuffer) head.duplicate().limit(header.length)))) {
+            if (head.remaining() == header.length) {
+                // The header is the whole file
+                start = header.length;
+            } else if (head.get(header.length) == '\n') {
+                start = header.length + 1;
+            } else if (head.remaining() > header.length + 1
+                    && head.get(header.length) == '\r'
+                    && head.get(header.length + 1) == '\n') {
+                start = header.length + 2;
+            }
+        }
+
+        final long body = length - start;
+        final int nRanges = (int) Math.max(1, Math.max(
+                    Math.min(body / 4096, 4L * Runtime.getRuntime()
+                        .availableProcessors()),
+                    (body + MAX_MAPPING / 2 - 1) / (MAX_MAPPING / 2)));
+        final long[] bounds = new long[nRanges + 1];
+        bounds[0] = start;
+        for (int r = 1; r < nRanges; r++) {
+            bounds[r] = Math.max(bounds[r - 1],
+                    nextLineStart(channel, start + body * r / nRanges));
+        }
+        bounds[nRanges] = length;
+        for (int r = 0; r < nRanges; r++) {
+            if (bounds[r + 1] - bounds[r] > MAX_MAPPING) {
+                throw new IOException("Line starting near byte " + bounds[r]
+                        + " is too long");
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Find the first line that starts at or after a position.
+     *
+     * @param channel The file
+     * @param position A byte offset, at least 1
+     * @return Offset of the first byte after the first newline at or after
+     *         position - 1, or the file size if there is none
+     * @throws IOException If the file cannot be read
+     */
+    private static long nextLineStart(final FileChannel channel,
+            final long position) throws IOException {
+        final ByteBuffer block = ByteBuffer.allocate(4096);
+        long pos = position - 1;
+        while (true) {
+            block.clear();
+            final int read = channel.read(block, pos);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+    }
+
+    /**
+     * The rows parsed from one byte range.
+     */
+    private static final class ParsedRange {
+        /**
+         * Number of rows.
+         */
+        int size = 0;
+        /**
+         * Age column.
+         */
+        double[] age;
+        /**
+         * Grade column.
+         */
+        int[] grade;
+        /**
+         * Enrollment status column.
+         */
+        boolean[] current;
+        /**
+         * First name code column.
+         */
+        int[] firstName;
+        /**
+         * Last name code column.
+         */
+        int[] lastName;
+
+        /**
+         * Constructor.
+         *
+         * @param setCapacity Initial number of rows to allocate
+         */
+        ParsedRange(final int setCapacity) {
+            final int capacity = Math.max(16, setCapacity);
+            age = new double[capacity];
+            grade = new int[capacity];
+            current = new boolean[capacity];
+            firstName = new int[capacity];
+            lastName = new int[capacity];
+        }
+
+        /**
+         * Make room for one more row.
+         */
+        void ensureCapacity() {
+            if (size < age.length) {
+                return;
+            }
+            final int capacity = 2 * age.length;
+            age = Arrays.copyOf(age, capacity);
+            grade = Arrays.copyOf(grade, capacity);
+            current = Arrays.copyOf(current, capacity);
+            firstName = Arrays.copyOf(firstName, capacity);
+            lastName = Arrays.copyOf(lastName, capacity);
+        }
+    }
+
+    /**
+     * Parse every line in a byte range.
+     *
+     * @param buf Mapping of the range
+     * @param base File offset of the range, for error messages
+     * @param firstNames Cache of first name codes for this task
+     * @param lastNames Cache of last name codes for this task
+     * @return The parsed rows
+     */
+    private static ParsedRange parseRange(final ByteBuffer buf,
+            final long base, final NameCache firstNames,
+            final NameCache lastNames) {
+        final int limit = buf.limit();
+        final ParsedRange out = new ParsedRange(limit / 32);
+        final int[] fieldEnd = new int[5];
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buf.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            final int next = lineEnd + 1;
+            if (lineEnd > lineStart && buf.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd == lineStart) {
+                lineStart = next;
+                continue;
+            }
+
+            int nFields = 0;
+            for (int i = lineStart; i < lineEnd && nFields < 5; i++) {
+                if (buf.get(i) == ',') {
+                    fieldEnd[nFields++] = i;
+                }
+            }
+            if (nFields != 4) {
+                throw malformed(base + lineStart, "expected 5 fields");
+            }
+            fieldEnd[4] = lineEnd;
+
+            out.ensureCapacity();
+            final int row = out.size;
+            try {
+                out.firstName[row] = firstNames.intern(buf, lineStart,
+                        fieldEnd[0]);
+                out.lastName[row] = lastNames.intern(buf, fieldEnd[0] + 1,
+                        fieldEnd[1]);
+                out.age[row] = parseDouble(buf, fieldEnd[1] + 1, fieldEnd[2]);
+                out.grade[row] = parseInt(buf, fieldEnd[2] + 1, fieldEnd[3]);
+                out.current[row] = parseBoolean(buf, fieldEnd[3] + 1,
+                        fieldEnd[4]);
+            } catch (NumberFormatException e) {
+                throw malformed(base + lineStart, e.getMessage());
+            }
+            out.size++;
+            lineStart = next;
+        }
+        return out;
+    }
+
+    /**
+     * Describe a malformed line.
+     *
+     * @param offset File offset of the line
+     * @param reason What is wrong with it
+     * @return An exception to throw out of a parallel task
+     */
+    private static UncheckedIOException malformed(final long offset,
+            final String reason) {
+        return new UncheckedIOException(new IOException(
+                    "Malformed line at byte " + offset + ": " + reason));
+    }
+
+    /**
+     * Join parsed ranges into one table.
+     *
+     * @param ranges Parsed rows of each range, in file order
+     * @param firstNames First name dictionary
+     * @param lastNames Last name dictionary
+     * @return The table
+     */
+    private static StudentTable assemble(final ParsedRange[] ranges,
+            final String[] firstNames, final String[] lastNames) {
+        final int[] offsets = new int[ranges.length + 1];
+        for (int r = 0; r < ranges.length; r++) {
+            offsets[r + 1] = Math.addExact(offsets[r], ranges[r].size);
+        }
+        final int n = offsets[ranges.length];
+        final double[] age = new double[n];
+        final int[] grade = new int[n];
+        final boolean[] flags = new boolean[n];
+        final int[] firstName = new int[n];
+        final int[] lastName = new int[n];
+        IntStream.range(0, ranges.length).parallel().forEach(r -> {
+            final ParsedRange range = ranges[r];
+            System.arraycopy(range.age, 0, age, offsets[r], range.size);
+            System.arraycopy(range.grade, 0, grade, offsets[r], range.size);
+            System.arraycopy(range.current, 0, flags, offsets[r], range.size);
+            System.arraycopy(range.firstName, 0, firstName, offsets[r],
+                    range.size);
+            System.arraycopy(range.lastName, 0, lastName, offsets[r],
+                    range.size);
+        });
+
+        final long[] current = new long[StudentTable.wordCount(n)];
+        IntStream.range(0, current.length).parallel().forEach(w -> {
+            final int base = w << 6;
+            final int end = Math.min(base + 64, n);
+            long word = 0;
+            for (int i = base; i < end; i++) {
+                if (flags[i]) {
+                    word |= 1L << (i - base);
+                }
+            }
+            current[w] = word;
+        });
+        return new StudentTable(n, age, grade, current, firstName, lastName,
+                firstNames, lastNames);
+    }
+
+    /**
+     * Parse a decimal number. Numbers of at most MAX_FAST_DIGITS significant
+     * digits with no exponent are computed from the bytes: as an exact long
+     * divided by an exact power of ten when the digits fit in 53 bits, and
+     * otherwise by divideRounded. Both round correctly. Anything else falls
+     * back to Double.parseDouble.
+     *
+     * @param buf Source bytes
+     * @param from First byte, inclusive
+     * @param to Last byte, exclusive
+     * @return The number
+     */
+    static double parseDouble(final ByteBuffer buf, final int from,
+            final int to) {
+        int i = from;
+        final boolean negative = i < to && buf.get(i) == '-';
+        if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < to; i++) {
+            final byte b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0 && ++digits > MAX_FAST_DIGITS) {
+                    return parseDoubleSlow(buf, from, to);
+                }
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return parseDoubleSlow(buf, from, to);
+            }
+        }
+        if (!seenDigit || fractionDigits >= POW10.length) {
+            return parseDoubleSlow(buf, from, to);
+        }
+        final double value = mantissa < EXACT_LONG_LIMIT
+            ? mantissa / POW10[fractionDigits]
+            : divideRounded(mantissa, fractionDigits);
+        return negative ? -value : value;
+    }
+
+    /**
+     * Compute m / 10^k correctly rounded, for m too large to be an exact
+     * double. Since 10^k = 5^k * 2^k, this is m / 5^k scaled by 2^-k. The
+     * quotient by 5^k is found by long division, a few bits at a time,
+     * until it has at least 55 bits, and any nonzero remainder is folded
+     * into its lowest bit so that the conversion to double rounds as the
+     * exact quotient would.
+     *
+     * @param m The digits, as an integer below 10^18
+     * @param k Number of fraction digits, below POW10.length
+     * @return The number
+     */
+    private static double divideRounded(final long m, final int k) {
+        final long d = POW5[k];
+        long q = m / d;
+        long r = m % d;
+        int shift = 0;
+        // d < 2^52, so r << 11 cannot overflow
+        int bits;
+        while ((bits = Long.SIZE - Long.numberOfLeadingZeros(q)) < 55) {
+            final int step = Math.min(11, 55 - bits);
+            q = (q << step) | ((r << step) / d);
+            r = (r << step) % d;
+            shift += step;
+        }
+        if (r != 0) {
+            q |= 1;
+        }
+        return Math.scalb((double) q, -(shift + k));
+    }
+
+    /**
+     * Parse a number of any form accepted by Double.parseDouble.
+     *
+     * @param buf Source bytes
+     * @param from First byte, inclusive
+     * @param to Last byte, exclusive
+     * @return The number
+     */
+    private static double parseDoubleSlow(final ByteBuffer buf, final int from,
+            final int to) {
+        return Double.parseDouble(ascii(buf, from, to));
+    }
+
+    /**
+     * Parse a decimal integer.
+     *
+     * @param buf Source bytes
+     * @param from First byte, inclusive
+     * @param to Last byte, exclusive
+     * @return The integer
+     */
+    static int parseInt(final ByteBuffer buf, final int from, final int to) {
+        int i = from;
+        final boolean negative = i < to && buf.get(i) == '-';
+        if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            i++;
+        }
+        if (i == to || to - i > 10) {
+            throw new NumberFormatException("Bad integer: "
+                    + ascii(buf, from, to));
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            final byte b = buf.get(i);
+            if (b < '0' || b > '9') {
+                throw new NumberFormatException("Bad integer: "
+                        + ascii(buf, from, to));
+            }
+            value = value * 10 + (b - '0');
+        }
+        value = negative ? -value : value;
+        if (value != (int) value) {
+            throw new NumberFormatException("Integer out of range: "
+                    + ascii(buf, from, to));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parse true/false (in any case) or 1/0.
+     *
+     * @param buf Source bytes
+     * @param from First byte, inclusive
+     * @param to Last byte, exclusive
+     * @return The boolean
+     */
+    private static boolean parseBoolean(final ByteBuffer buf, final int from,
+            final int to) {
+        if (to - from == 1 && buf.get(from) == '1'
+                || matchesIgnoreCase(buf, from, to, "true")) {
+            return true;
+        }
+        if (to - from == 1 && buf.get(from) == '0'
+                || matchesIgnoreCase(buf, from, to, "false")) {
+            return false;
+        }
+        throw new NumberFormatException("Bad boolean: "
+                + ascii(buf, from, to));
+    }
+
+    /**
+     * Compare a field with a lower-case ASCII word, ignoring case, in place.
+     *
+     * @param buf Source bytes
+     * @param from First byte, inclusive
+     * @param to Last byte, exclusive
+     * @param word The word, in lower case
+     * @return true if the field is the word
+     */
+    private static boolean matchesIgnoreCase(final ByteBuffer buf,
+            final int from, final int to, final String word) {
+        if (to - from != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            final int b = buf.get(from + i);
+            final int lower = b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+            if (lower != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode a short field for parsing slow paths and error messages.
+     *
+     * @param buf Source bytes
+     * @param from First byte, inclusive
+     * @param to Last byte, exclusive
+     * @return The field as a String
+     */
+    private static String ascii(final ByteBuffer buf, final int from,
+            final int to) {
+        final byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buf.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A per-task open-addressing table from the bytes of a name to its code
+     * in a shared NameDictionary. Hits compare bytes in place and allocate
+     * nothing; a miss decodes the name once and interns it.
+     */
+    private static final class NameCache {
+        /**
+         * Dictionary that assigns the codes.
+         */
+        private final NameDictionary dictionary;
+        /**
+         * Bytes of each cached name, or null for an empty slot.
+         */
+        private byte[][] keys = new byte[64][];
+        /**
+         * Code of each cached name.
+         */
+        private int[] codes = new int[64];
+        /**
+         * Number of cached names.
+         */
+        private int size = 0;
+
+        /**
+         * Constructor.
+         *
+         * @param setDictionary Dictionary that assigns the codes
+         */
+        NameCache(final NameDictionary setDictionary) {
+            this.dictionary = setDictionary;
+        }
+
+        /**
+         * Look up the code of the name held in a byte range.
+         *
+         * @param buf Source bytes
+         * @param from First byte, inclusive
+         * @param to Last byte, exclusive
+         * @return Code of the name
+         */
+        int intern(final ByteBuffer buf, final int from, final int to) {
+            int h = 0;
+            for (int i = from; i < to; i++) {
+                h = 31 * h + buf.get(i);
+            }
+            h ^= h >>> 16;
+            final int mask = keys.length - 1;
+            int slot = h & mask;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], buf, from, to)) {
+                    return codes[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            final byte[] key = new byte[to - from];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = buf.get(from + i);
+            }
+            final int code = dictionary.intern(
+                    new String(key, StandardCharsets.UTF_8));
+            keys[slot] = key;
+            codes[slot] = code;
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+            return code;
+        }
+
+        /**
+         * Compare cached bytes against a byte range.
+         *
+         * @param key Cached name
+         * @param buf Source bytes
+         * @param from First byte, inclusive
+         * @param to Last byte, exclusive
+         * @return true if they hold the same bytes
+         */
+        private static boolean matches(final byte[] key, final ByteBuffer buf,
+                final int from, final int to) {
+            if (key.length != to - from) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buf.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Double the table.
+         */
+        private void rehash() {
+            final byte[][] oldKeys = keys;
+            final int[] oldCodes = codes;
+            keys = new byte[2 * oldKeys.length][];
+            codes = new int[2 * oldKeys.length];
+            final int mask = keys.length - 1;
+            for (int s = 0; s < oldKeys.length; s++) {
+                if (oldKeys[s] == null) {
+                    continue;
+                }
+                int h = 0;
+                for (byte b : oldKeys[s]) {
+                    h = 31 * h + b;
+                }
+                h ^= h >>> 16;
+                int slot = h & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[s];
+                codes[slot] = oldCodes[s];
+            }
+        }
+    }
+}
@@ -0,0 +1,835 @@
+package parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * A declarative filter over a StudentTable, for example
+ * {@code StudentQuery.where(CURRENT.eq(false)).and(AGE.gt(20)).and(GRADE.lt(65))
+ * .count(table)}.
+ *
+ * Every condition is an interval on one column, so a conjunction compiles
+ * down to one closed interval per column. Terminal operations then run a
+ * single fused parallel loop over the columns that tests the intervals
+ * directly, with no lambda per element or per condition. Queries are
+ * immutable values; and() returns a new one, and queries that compile to
+ * the same intervals are equal.
+ */
+public final class StudentQuery {
+    /**
+     * Column index of age.
+     */
+    private static final int AGE_COLUMN = 0;
+    /**
+     * Column index of grade.
+     */
+    private static final int GRADE_COLUMN = 1;
+    /**
+     * Column index of enrollment status.
+     */
+    private static final int CURRENT_COLUMN = 2;
+    /**
+     * Column index of first name.
+     */
+    private static final int FIRST_NAME_COLUMN = 3;
+    /**
+     * Column index of last name.
+     */
+    private static final int LAST_NAME_COLUMN = 4;
+
+    /**
+     * The age column.
+     */
+    public static final NumberColumn AGE = new NumberColumn(AGE_COLUMN);
+    /**
+     * The grade column.
+     */
+    public static final NumberColumn GRADE = new NumberColumn(GRADE_COLUMN);
+    /**
+     * The enrollment status column.
+     */
+    public static final BooleanColumn CURRENT = new BooleanColumn();
+    /**
+     * The first name column.
+     */
+    public static final NameColumn FIRST_NAME =
+        new NameColumn(FIRST_NAME_COLUMN);
+    /**
+     * The last name column.
+     */
+    public static final NameColumn LAST_NAME = new NameColumn(LAST_NAME_COLUMN);
+
+    /**
+     * The query that matches every student.
+     */
+    private static final StudentQuery ALL = new StudentQuery(false,
+            Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Integer.MIN_VALUE, Integer.MAX_VALUE, -1, null, null);
+
+    /**
+     * Whether any age condition applies. Without one, NaN ages match.
+     */
+    private final boolean ageBounded;
+    /**
+     * Smallest matching age.
+     */
+    private final double ageMin;
+    /**
+     * Largest matching age.
+     */
+    private final double ageMax;
+    /**
+     * Smallest matching grade.
+     */
+    private final long gradeMin;
+    /**
+     * Largest matching grade.
+     */
+    private final long gradeMax;
+    /**
+     * 1 to match enrolled students, 0 inactive ones, -1 both, -2 neither.
+     */
+    private final int current;
+    /**
+     * Required first name, or null for any.
+     */
+    private final String firstName;
+    /**
+     * Required last name, or null for any.
+     */
+    private final String lastName;
+
+    /**
+     * Constructor.
+     *
+     * @param setAgeBounded Whether any age condition applies
+     * @param setAgeMin Smallest matching age
+     * @param setAgeMax Largest matching age
+     * @param setGradeMin Smallest matching grade
+     * @param setGradeMax Largest matching grade
+     * @param setCurrent 1 for enrolled, 0 inactive, -1 both, -2 neither
+     * @param setFirstName Required first name, or null
+     * @param setLastName Required last name, or null
+     */
+    private StudentQuery(final boolean setAgeBounded, final double setAgeMin,
+            final double setAgeMax, final long setGradeMin,
+            final long setGradeMax, final int setCurrent,
+            final String setFirstName, final String setLastName) {
+        this.ageBounded = setAgeBounded;
+        this.ageMin = setAgeMin;
+        this.ageMax = setAgeMax;
+        this.gradeMin = setGradeMin;
+        this.gradeMax = setGradeMax;
+        this.current = setCurrent;
+        this.firstName = setFirstName;
+        this.lastName = setLastName;
+    }
+
+    /**
+     * The query that matches every student.
+     *
+     * @return A query with no conditions
+     */
+    public static StudentQuery all() {
+        return ALL;
+    }
+
+    /**
+     * Start a query with one condition.
+     *
+     * @param condition The condition
+     * @return A query matching students that satisfy condition
+     */
+    public static StudentQuery where(final Condition condition) {
+        return ALL.and(condition);
+    }
+
+    /**
+     * Narrow this query by one more condition.
+     *
+     * @param condition The condition
+     * @return A query matching students that satisfy this query and
+     *         condition
+     */
+    public StudentQuery and(final Condition condition) {
+        switch (condition.column) {
+            case AGE_COLUMN:
+                return new StudentQuery(true, Math.max(ageMin, condition.min),
+                        Math.min(ageMax, condition.max), gradeMin, gradeMax,
+                        current, firstName, lastName);
+            case GRADE_COLUMN:
+                return new StudentQuery(ageBounded, ageMin, ageMax,
+                        Math.max(gradeMin, (long) Math.ceil(condition.min)),
+                        Math.min(gradeMax, (long) Math.floor(condition.max)),
+                        current, firstName, lastName);
+            case CURRENT_COLUMN:
+                final int required = condition.min == 1 ? 1 : 0;
+                return new StudentQuery(ageBounded, ageMin, ageMax, gradeMin,
+                        gradeMax, current == -1 || current == required
+                        ? required : -2, firstName, lastName);
+            case FIRST_NAME_COLUMN:
+                return new StudentQuery(ageBounded, ageMin, ageMax, gradeMin,
+                        gradeMax, firstName == null
+                        || firstName.equals(condition.name) ? current : -2,
+                        condition.name, lastName);
+            default:
+                return new StudentQuery(ageBounded, ageMin, ageMax, gradeMin,
+                        gradeMax, lastName == null
+                        || lastName.equals(condition.name) ? current : -2,
+                        firstName, condition.name);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if ((o == null) || (o.getClass() != this.getClass())) {
+            return false;
+        }
+        final StudentQuery q = (StudentQuery) o;
+        return q.ageBounded == ageBounded
+            && Double.compare(q.ageMin, ageMin) == 0
+            && Double.compare(q.ageMax, ageMax) == 0
+            && q.gradeMin == gradeMin && q.gradeMax == gradeMax
+            && q.current == current
+            && Objects.equals(q.firstName, firstName)
+            && Objects.equals(q.lastName, lastName);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(ageBounded, ageMin, ageMax, gradeMin, gradeMax,
+                current, firstName, lastName);
+    }
+
+    /**
+     * Check whether the conditions contradict each other, so that no
+     * student can match.
+     *
+     * @return true if no student can match
+     */
+    private boolean isEmpty() {
+        return current == -2 || gradeMin > gradeMax
+            || (ageBounded && !(ageMin <= ageMax));
+    }
+
+    /**
+     * Number of matching students.
+     *
+     * @param table Student data, in columnar form
+     * @return Number of matching students
+     */
+    public int count(final StudentTable table) {
+        return (int) scan(table, false).count;
+    }
+
+    /**
+     * Average age of matching students.
+     *
+     * @param table Student data, in columnar form
+     * @return Average age, or 0.0 if no student matches
+     */
+    public double averageAge(final StudentTable table) {
+        final Totals totals = scan(table, true);
+        return totals.count == 0 ? 0.0 : totals.ageSum / totals.count;
+    }
+
+    /**
+     * Average grade of matching students.
+     *
+     * @param table Student data, in columnar form
+     * @return Average grade, or 0.0 if no student matches
+     */
+    public double averageGrade(final StudentTable table) {
+        final Totals totals = scan(table, true);
+        return totals.count == 0 ? 0.0
+            : (double) totals.gradeSum / totals.count;
+    }
+
+    /**
+     * Most common first name of matching students.
+     *
+     * @param table Student data, in columnar form
+     * @return Most common first name, the one appearing first in the table
+     *         on ties, or null if no student matches
+     */
+    public String mostCommonFirstName(final StudentTable table) {
+        final String[] dictionary = table.firstNameDictionary();
+        final int[] codes = table.firstNameColumn();
+        final int firstCode = codeOf(dictionary, firstName);
+        final int lastCode = codeOf(table.lastNameDictionary(), lastName);
+        if (isEmpty() || firstCode == -2 || lastCode == -2) {
+            return null;
+        }
+        final List<int[]> histograms = accumulateRanges(table,
+                () -> new int[dictionary.length],
+                (histogram, wordStart, wordEnd) -> {
+                    for (int w = wordStart; w < wordEnd; w++) {
+                        long bits = matchWord(table, w, firstCode, lastCode);
+                        while (bits != 0) {
+                            histogram[codes[(w << 6)
+                                + Long.numberOfTrailingZeros(bits)]]++;
+                            bits &= bits - 1;
+                        }
+                    }
+                });
+        final int[] counts = histograms.get(0);
+        IntStream.range(0, counts.length).parallel().forEach(c -> {
+            for (int h = 1; h < histograms.size(); h++) {
+                counts[c] += histograms.get(h)[c];
+            }
+        });
+        return StudentAnalytics.dictionaryMode(counts, dictionary);
+    }
+
+    /**
+     * Group matching students and summarize one attribute per group. Each
+     * worker thread accumulates into its own primitive arrays indexed by
+     * group, and the arrays are merged group by group in parallel at the
+     * end; no per-student objects are created.
+     *
+     * @param table Student data, in columnar form
+     * @param key What to group by
+     * @param measure The attribute to summarize
+     * @return Count, sum, average, min and max of measure per group
+     */
+    public StudentGroups groupBy(final StudentTable table, final GroupKey key,
+            final StudentGroups.Measure measure) {
+        final GroupKey.Bound groups = key.bind(table);
+        final int nGroups = groups.size();
+        final String[] labels = new String[nGroups];
+        for (int g = 0; g < nGroups; g++) {
+            labels[g] = groups.label(g);
+        }
+        final long[] count = new long[nGroups];
+        final double[] sum = new double[nGroups];
+        final double[] min = new double[nGroups];
+        final double[] max = new double[nGroups];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+
+        final int firstCode = codeOf(table.firstNameDictionary(), firstName);
+        final int lastCode = codeOf(table.lastNameDictionary(), lastName);
+        if (isEmpty() || firstCode == -2 || lastCode == -2) {
+            return new StudentGroups(labels, count, sum, min, max);
+        }
+        final double[] age = table.ageColumn();
+        final int[] grade = table.gradeColumn();
+        final boolean byAge = measure == StudentGroups.Measure.AGE;
+
+        final List<GroupTotals> partials = accumulateRanges(table,
+                () -> new GroupTotals(nGroups),
+                (t, wordStart, wordEnd) -> {
+                    for (int w = wordStart; w < wordEnd; w++) {
+                        long bits = matchWord(table, w, firstCode, lastCode);
+                        while (bits != 0) {
+                            final int i = (w << 6)
+                                + Long.numberOfTrailingZeros(bits);
+                            bits &= bits - 1;
+                            final int g = groups.groupOf(i);
+                            if (g < 0) {
+                                continue;
+                            }
+                            final double v = byAge ? age[i] : grade[i];
+                            t.count[g]++;
+                            t.sum[g] += v;
+                            t.min[g] = Math.min(t.min[g], v);
+                            t.max[g] = Math.max(t.max[g], v);
+                        }
+                    }
+                });
+
+        IntStream.range(0, nGroups).parallel().forEach(g -> {
+            for (GroupTotals p : partials) {
+                count[g] += p.count[g];
+                sum[g] += p.sum[g];
+                min[g] = Math.min(min[g], p.min[g]);
+                max[g] = Math.max(max[g], p.max[g]);
+            }
+        });
+        return new StudentGroups(labels, count, sum, min, max);
+    }
+
+    /**
+     * Count and, optionally, sum the ages and grades of matching students.
+     *
+     * @param table Student data, in columnar form
+     * @param withSums Whether to compute the sums
+     * @return The totals
+     */
+    private Totals scan(final StudentTable table, final boolean withSums) {
+        final Totals totals = new Totals();
+        final int firstCode = codeOf(table.firstNameDictionary(), firstName);
+        final int lastCode = codeOf(table.lastNameDictionary(), lastName);
+        if (isEmpty() || firstCode == -2 || lastCode == -2) {
+            return totals;
+        }
+        final double[] age = table.ageColumn();
+        final int[] grade = table.gradeColumn();
+        final Totals[] partial = new Totals[rangeCount(table)];
+        forEachRange(table, partial.length, (r, wordStart, wordEnd) -> {
+            final Totals t = new Totals();
+            for (int w = wordStart; w < wordEnd; w++) {
+                long bits = matchWord(table, w, firstCode, lastCode);
+                t.count += Long.bitCount(bits);
+                if (withSums) {
+                    while (bits != 0) {
+                        final int i = (w << 6)
+                            + Long.numberOfTrailingZeros(bits);
+                        t.ageSum += age[i];
+                        t.gradeSum += grade[i];
+                        bits &= bits - 1;
+                    }
+                }
+            }
+            partial[r] = t;
+        });
+        for (Totals t : partial) {
+            totals.count += t.count;
+            totals.ageSum += t.ageSum;
+            totals.gradeSum += t.gradeSum;
+        }
+        return totals;
+    }
+
+    /**
+     * Test every condition against 64 rows at once. Enrollment is applied
+     * with one AND against the enrollment bitset, and then each column that
+     * has a condition is tested in its own branch-free loop, so columns
+     * without one are never loaded. Testing stops as soon as no row is left.
+     *
+     * @param table Student data, in columnar form
+     * @param w Word index
+     * @param firstCode Code of the required first name, or -1 for any
+     * @param lastCode Code of the required last name, or -1 for any
+     * @return Bitset of matching students in rows 64w to 64w + 63
+     */
+    private long matchWord(final StudentTable table, final int w,
+            final int firstCode, final int lastCode) {
+        final long candidates;
+        if (current == 1) {
+            candidates = table.currentColumn()[w];
+        } else if (current == 0) {
+            candidates = table.inactiveWord(w);
+        } else {
+            candidates = table.inactiveWord(w) | table.currentColumn()[w];
+        }
+        if (candidates == 0) {
+            return 0;
+        }
+
+        final int base = w << 6;
+        final int end = Math.min(base + 64, table.size());
+        long matches = candidates;
+        if (ageBounded) {
+            matches &= bitsWithin(table.ageColumn(), base, end, ageMin,
+                    ageMax);
+        }
+        if (matches != 0 && (gradeMin > Integer.MIN_VALUE
+                    || gradeMax < Integer.MAX_VALUE)) {
+            matches &= bitsWithin(table.gradeColumn(), base, end, gradeMin,
+                    gradeMax);
+        }
+        if (matches != 0 && firstCode >= 0) {
+            matches &= bitsWithin(table.firstNameColumn(), base, end,
+                    firstCode, firstCode);
+        }
+        if (matches != 0 && lastCode >= 0) {
+            matches &= bitsWithin(table.lastNameColumn(), base, end,
+                    lastCode, lastCode);
+        }
+        return matches;
+    }
+
+    /**
+     * Test up to 64 consecutive values of a column against an interval,
+     * without branching on the data. NaN is never within it.
+     *
+     * @param column The column
+     * @param base First row
+     * @param end Last row, exclusive, at most base + 64
+     * @param min Smallest matching value
+     * @param max Largest matching value
+     * @return Bitset with bit i - base set for each matching row i
+     */
+    private static long bitsWithin(final double[] column, final int base,
+            final int end, final double min, final double max) {
+        long bits = 0;
+        for (int i = base; i < end; i++) {
+            final boolean hit = column[i] >= min & column[i] <= max;
+            bits |= (hit ? 1L : 0L) << (i - base);
+        }
+        return bits;
+    }
+
+    /**
+     * Test up to 64 consecutive values of a column against an interval,
+     * without branching on the data.
+     *
+     * @param column The column
+     * @param base First row
+     * @param end Last row, exclusive, at most base + 64
+     * @param min Smallest matching value
+     * @param max Largest matching value
+     * @return Bitset with bit i - base set for each matching row i
+     */
+    private static long bitsWithin(final int[] column, final int base,
+            final int end, final long min, final long max) {
+        long bits = 0;
+        for (int i = base; i < end; i++) {
+            final boolean hit = column[i] >= min & column[i] <= max;
+            bits |= (hit ? 1L : 0L) << (i - base);
+        }
+        return bits;
+    }
+
+    /**
+     * Find the code of a name in a table's dictionary.
+     *
+     * @param dictionary Distinct names, indexed by code
+     * @param name The name, or null for any
+     * @return Its code, -1 for any name, or -2 if the table holds no such
+     *         name
+     */
+    private static int codeOf(final String[] dictionary, final String name) {
+        if (name == null) {
+            return -1;
+        }
+        for (int c = 0; c < dictionary.length; c++) {
+            if (dictionary[c].equals(name)) {
+                return c;
+            }
+        }
+        return -2;
+    }
+
+    /**
+     * Number of parallel ranges to split a table's words into.
+     *
+     * @param table The table
+     * @return Number of ranges, at least 1
+     */
+    private static int rangeCount(final StudentTable table) {
+        return Math.max(1, Math.min(StudentTable.wordCount(table.size()),
+                    4 * Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Run a body over contiguous ranges of a table's words, in parallel.
+     *
+     * @param table The table
+     * @param nRanges Number of ranges
+     * @param body Called with each range index and its word bounds
+     */
+    private static void forEachRange(final StudentTable table,
+            final int nRanges, final RangeBody body) {
+        final long nWords = StudentTable.wordCount(table.size());
+        IntStream.range(0, nRanges).parallel().forEach(r -> body.apply(r,
+                    (int) (nWords * r / nRanges),
+                    (int) (nWords * (r + 1) / nRanges)));
+    }
+
+    /**
+     * Run a body over contiguous ranges of a table's words, in parallel,
+     * accumulating into partial results. Each range borrows a partial that no
+     * running range is using and returns it when done, so at most one
+     * partial is created per thread that runs ranges, however finely the
+     * table is split.
+     *
+     * @param table The table
+     * @param supplier Creates an empty partial
+     * @param body Called with a partial and the word bounds of each range
+     * @param <T> Type of the partial results
+     * @return Every partial created, at least one
+     */
+    private static <T> List<T> accumulateRanges(final StudentTable table,
+            final Supplier<T> supplier, final PartialBody<T> body) {
+        final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<T>();
+        forEachRange(table, rangeCount(table), (r, wordStart, wordEnd) -> {
+            T partial = idle.poll();
+            if (partial == null) {
+                partial = supplier.get();
+            }
+            body.apply(partial, wordStart, wordEnd);
+            idle.offer(partial);
+        });
+        return new ArrayList<T>(idle);
+    }
+
+    /**
+     * The work done on one range of words into a partial result.
+     *
+     * @param <T> Type of the partial results
+     */
+    @FunctionalInterface
+    private interface PartialBody<T> {
+        /**
+         * Process one range.
+         *
+         * @param partial Partial result to accumulate into
+         * @param wordStart First word, inclusive
+         * @param wordEnd Last word, exclusive
+         */
+        void apply(T partial, int wordStart, int wordEnd);
+    }
+
+    /**
+     * Per-group totals accumulated by one thread in groupBy.
+     */
+    private static final class GroupTotals {
+        /**
+         * Number of matching students in each group.
+         */
+        final long[] count;
+        /**
+         * Sum of the measure in each group.
+         */
+        final double[] sum;
+        /**
+         * Smallest measure in each group.
+         */
+        final double[] min;
+        /**
+         * Largest measure in each group.
+         */
+        final double[] max;
+
+        /**
+         * Constructor.
+         *
+         * @param nGroups Number of groups
+         */
+        GroupTotals(final int nGroups) {
+            this.count = new long[nGroups];
+            this.sum = new double[nGroups];
+            this.min = new double[nGroups];
+            this.max = new double[nGroups];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+    }
+
+    /**
+     * The work done on one range of words.
+     */
+    @FunctionalInterface
+    private interface RangeBody {
+        /**
+         * Process one range.
+         *
+         * @param r Range index
+         * @param wordStart First word, inclusive
+         * @param wordEnd Last word, exclusive
+         */
+        void apply(int r, int wordStart, int wordEnd);
+    }
+
+    /**
+     * Running totals over matching students.
+     */
+    private static final class Totals {
+        /**
+         * Number of matching students.
+         */
+        long count = 0;
+        /**
+         * Sum of their ages.
+         */
+        double ageSum = 0.0;
+        /**
+         * Sum of their grades.
+         */
+        long gradeSum = 0;
+    }
+
+    /**
+     * A condition on one column: its value must lie in a closed interval,
+     * or equal a name.
+     */
+    public static final class Condition {
+        /**
+         * Column index.
+         */
+        private final int column;
+        /**
+         * Smallest matching value.
+         */
+        private final double min;
+        /**
+         * Largest matching value.
+         */
+        private final double max;
+        /**
+         * Required name, for name columns.
+         */
+        private final String name;
+
+        /**
+         * Constructor.
+         *
+         * @param setColumn Column index
+         * @param setMin Smallest matching value
+         * @param setMax Largest matching value
+         * @param setName Required name, for name columns
+         */
+        private Condition(final int setColumn, final double setMin,
+                final double setMax, final String setName) {
+            this.column = setColumn;
+            this.min = setMin;
+            this.max = setMax;
+            this.name = setName;
+        }
+    }
+
+    /**
+     * A numeric column, compared against double bounds.
+     */
+    public static final class NumberColumn {
+        /**
+         * Column index.
+         */
+        private final int column;
+
+        /**
+         * Constructor.
+         *
+         * @param setColumn Column index
+         */
+        private NumberColumn(final int setColumn) {
+            this.column = setColumn;
+        }
+
+        /**
+         * Condition that the value is in a closed interval. A NaN bound
+         * matches nothing.
+         *
+         * @param min Smallest matching value
+         * @param max Largest matching value
+         * @return The condition
+         */
+        public Condition between(final double min, final double max) {
+            if (Double.isNaN(min) || Double.isNaN(max)) {
+                return new Condition(column, Double.POSITIVE_INFINITY,
+                        Double.NEGATIVE_INFINITY, null);
+            }
+            return new Condition(column, min, max, null);
+        }
+
+        /**
+         * Condition that the value is strictly greater than a bound.
+         *
+         * @param bound The bound
+         * @return The condition
+         */
+        public Condition gt(final double bound) {
+            return between(Math.nextUp(bound), Double.POSITIVE_INFINITY);
+        }
+
+        /**
+         * Condition that the value is at least a bound.
+         *
+         * @param bound The bound
+         * @return The condition
+         */
+        public Condition ge(final double bound) {
+            return between(bound, Double.POSITIVE_INFINITY);
+        }
+
+        /**
+         * Condition that the value is strictly less than a bound.
+         *
+         * @param bound The bound
+         * @return The condition
+         */
+        public Condition lt(final double bound) {
+            return between(Double.NEGATIVE_INFINITY, Math.nextDown(bound));
+        }
+
+        /**
+         * Condition that the value is at most a bound.
+         *
+         * @param bound The bound
+         * @return The condition
+         */
+        public Condition le(final double bound) {
+            return between(Double.NEGATIVE_INFINITY, bound);
+        }
+
+        /**
+         * Condition that the value equals a constant.
+         *
+         * @param value The constant
+         * @return The condition
+         */
+        public Condition eq(final double value) {
+            return between(value, value);
+        }
+    }
+
+    /**
+     * The enrollment status column.
+     */
+    public static final class BooleanColumn {
+        /**
+         * Constructor.
+         */
+        private BooleanColumn() {
+        }
+
+        /**
+         * Condition that the value equals a constant.
+         *
+         * @param value The constant
+         * @return The condition
+         */
+        public Condition eq(final boolean value) {
+            final double v = value ? 1 : 0;
+            return new Condition(CURRENT_COLUMN, v, v, null);
+        }
+    }
+
+    /**
+     * A name column.
+     */
+    public static final class NameColumn {
+        /**
+         * Column index.
+         */
+        private final int column;
+
+        /**
+         * Constructor.
+         *
+         * @param setColumn Column index
+         */
+        private NameColumn(final int setColumn) {
+            this.column = setColumn;
+        }
+
+        /**
+         * Condition that the value equals a name.
+         *
+         * @param value The name
+         * @return The condition
+         */
+        public Condition eq(final String value) {
+            if (value == null) {
+                throw new NullPointerException("value");
+            }
+            return new Condition(column, 0, 0, value);
+        }
+    }
+}
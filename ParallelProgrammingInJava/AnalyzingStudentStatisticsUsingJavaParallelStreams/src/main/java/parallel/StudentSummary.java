@@ -0,0 +1,91 @@
+package parallel;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.stream.Collector;
+
+/**
+ * The results of one fused pass over a set of students: the three built-in
+ * statistics of StudentAnalytics plus the result of every extra aggregate
+ * that was registered for the pass.
+ */
+public final class StudentSummary {
+    /**
+     * Average age of enrolled students.
+     */
+    private final double averageAgeOfEnrolledStudents;
+    /**
+     * Most common first name of inactive students.
+     */
+    private final String mostCommonFirstNameOfInactiveStudents;
+    /**
+     * Number of failed students older than 20.
+     */
+    private final int numberOfFailedStudentsOlderThan20;
+    /**
+     * Result of each extra aggregate, keyed by the collector that computed
+     * it.
+     */
+    private final Map<Collector<Student, ?, ?>, Object> aggregates;
+
+    /**
+     * Constructor.
+     *
+     * @param setAverageAge Average age of enrolled students
+     * @param setMostCommonName Most common first name of inactive students
+     * @param setFailedCount Number of failed students older than 20
+     * @param setAggregates Result of each extra aggregate
+     */
+    StudentSummary(final double setAverageAge, final String setMostCommonName,
+            final int setFailedCount,
+            final IdentityHashMap<Collector<Student, ?, ?>, Object> setAggregates) {
+        this.averageAgeOfEnrolledStudents = setAverageAge;
+        this.mostCommonFirstNameOfInactiveStudents = setMostCommonName;
+        this.numberOfFailedStudentsOlderThan20 = setFailedCount;
+        this.aggregates = setAggregates;
+    }
+
+    /**
+     * Getter for the average age of enrolled students.
+     *
+     * @return Average age of enrolled students, or 0.0 if there are none
+     */
+    public double getAverageAgeOfEnrolledStudents() {
+        return averageAgeOfEnrolledStudents;
+    }
+
+    /**
+     * Getter for the most common first name of inactive students.
+     *
+     * @return Most common first name of inactive students, or null if there
+     *         are none
+     */
+    public String getMostCommonFirstNameOfInactiveStudents() {
+        return mostCommonFirstNameOfInactiveStudents;
+    }
+
+    /**
+     * Getter for the number of failed students older than 20.
+     *
+     * @return Number of failed grades from students older than 20 years old.
+     */
+    public int getNumberOfFailedStudentsOlderThan20() {
+        return numberOfFailedStudentsOlderThan20;
+    }
+
+    /**
+     * Result of an extra aggregate registered for this pass.
+     *
+     * @param aggregate The collector that was passed in
+     * @param <R> Result type of the collector
+     * @return The collector's result
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(final Collector<Student, ?, R> aggregate) {
+        if (!aggregates.containsKey(aggregate)) {
+            throw new IllegalArgumentException(
+                    "Aggregate was not registered for this pass");
+        }
+        return (R) aggregates.get(aggregate);
+    }
+}
@@ -0,0 +1,222 @@
+package parallel;
+
+/**
+ * A column-oriented (struct-of-arrays) copy of a set of students. Row i of
+ * every column describes the same student. Ages and grades are primitive
+ * arrays, enrollment status is a bitset packed 64 students per long, and
+ * names are dictionary-encoded as int codes into a per-column array of
+ * distinct strings.
+ */
+public final class StudentTable {
+    /**
+     * Number of students.
+     */
+    private final int size;
+    /**
+     * Age of each student.
+     */
+    private final double[] age;
+    /**
+     * Grade of each student.
+     */
+    private final int[] grade;
+    /**
+     * Enrollment status: bit (i % 64) of word (i / 64) is set if student i
+     * is currently enrolled. Bits past size are always clear.
+     */
+    private final long[] current;
+    /**
+     * Dictionary code of each student's first name.
+     */
+    private final int[] firstName;
+    /**
+     * Dictionary code of each student's last name.
+     */
+    private final int[] lastName;
+    /**
+     * Distinct first names, indexed by code.
+     */
+    private final String[] firstNameDictionary;
+    /**
+     * Distinct last names, indexed by code.
+     */
+    private final String[] lastNameDictionary;
+
+    /**
+     * Constructor. The arrays are used as-is, not copied.
+     *
+     * @param setSize Number of students
+     * @param setAge Age column
+     * @param setGrade Grade column
+     * @param setCurrent Enrollment bitset, of (setSize + 63) / 64 words
+     * @param setFirstName First name code column
+     * @param setLastName Last name code column
+     * @param setFirstNameDictionary Distinct first names, indexed by code
+     * @param setLastNameDictionary Distinct last names, indexed by code
+     */
+    StudentTable(final int setSize, final double[] setAge,
+            final int[] setGrade, final long[] setCurrent,
+            final int[] setFirstName, final int[] setLastName,
+            final String[] setFirstNameDictionary,
+            final String[] setLastNameDictionary) {
+        this.size = setSize;
+        this.age = setAge;
+        this.grade = setGrade;
+        this.current = setCurrent;
+        this.firstName = setFirstName;
+        this.lastName = setLastName;
+        this.firstNameDictionary = setFirstNameDictionary;
+        this.lastNameDictionary = setLastNameDictionary;
+    }
+
+    /**
+     * Build a columnar table from an array of students.
+     *
+     * @param studentArray Student data for the class.
+     * @return A table holding the same students in the same order
+     */
+    public static StudentTable fromStudents(final Student[] studentArray) {
+        final int n = studentArray.length;
+        final double[] age = new double[n];
+        final int[] grade = new int[n];
+        final long[] current = new long[wordCount(n)];
+        final int[] firstName = new int[n];
+        final int[] lastName = new int[n];
+        final NameDictionary firstNames = new NameDictionary();
+        final NameDictionary lastNames = new NameDictionary();
+
+        for (int i = 0; i < n; i++) {
+            final Student s = studentArray[i];
+            age[i] = s.getAge();
+            grade[i] = s.getGrade();
+            if (s.getIsCurrent()) {
+                current[i >>> 6] |= 1L << i;
+            }
+            firstName[i] = firstNames.intern(s.getFirstName());
+            lastName[i] = lastNames.intern(s.getLastName());
+        }
+
+        return new StudentTable(n, age, grade, current, firstName, lastName,
+                firstNames.toArray(), lastNames.toArray());
+    }
+
+    /**
+     * Number of 64-bit words needed to hold a bitset of n bits.
+     *
+     * @param n Number of bits
+     * @return Number of words
+     */
+    static int wordCount(final int n) {
+        return (n + 63) >>> 6;
+    }
+
+    /**
+     * Getter for the number of students.
+     *
+     * @return Number of students
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Reconstruct the Student object for one row.
+     *
+     * @param i Row index
+     * @return A new Student equal to the one stored at row i
+     */
+    public Student getStudent(final int i) {
+        return new Student(firstNameDictionary[firstName[i]],
+                lastNameDictionary[lastName[i]], age[i], grade[i],
+                isCurrent(i));
+    }
+
+    /**
+     * Check the enrollment status of one row.
+     *
+     * @param i Row index
+     * @return true if student i is currently enrolled
+     */
+    public boolean isCurrent(final int i) {
+        return (current[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Word w of the enrollment bitset, complemented so that set bits mark
+     * students that are not currently enrolled. Bits past size stay clear.
+     *
+     * @param w Word index
+     * @return Bitset of inactive students in rows 64w to 64w + 63
+     */
+    long inactiveWord(final int w) {
+        final long word = ~current[w];
+        final int tail = size - (w << 6);
+        if (tail >= 64) {
+            return word;
+        }
+        return word & ((1L << tail) - 1);
+    }
+
+    /**
+     * Getter for the age column.
+     *
+     * @return Age of each student
+     */
+    double[] ageColumn() {
+        return age;
+    }
+
+    /**
+     * Getter for the grade column.
+     *
+     * @return Grade of each student
+     */
+    int[] gradeColumn() {
+        return grade;
+    }
+
+    /**
+     * Getter for the enrollment bitset.
+     *
+     * @return Enrollment status, 64 students per word
+     */
+    long[] currentColumn() {
+        return current;
+    }
+
+    /**
+     * Getter for the first name code column.
+     *
+     * @return Dictionary code of each student's first name
+     */
+    int[] firstNameColumn() {
+        return firstName;
+    }
+
+    /**
+     * Getter for the last name code column.
+     *
+     * @return Dictionary code of each student's last name
+     */
+    int[] lastNameColumn() {
+        return lastName;
+    }
+
+    /**
+     * Getter for the first name dictionary.
+     *
+     * @return Distinct first names, indexed by code
+     */
+    String[] firstNameDictionary() {
+        return firstNameDictionary;
+    }
+
+    /**
+     * Getter for the last name dictionary.
+     *
+     * @return Distinct last names, indexed by code
+     */
+    String[] lastNameDictionary() {
+        return lastNameDictionary;
+    }
+}
@@ -0,0 +1,149 @@
+package parallel;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for every StudentAnalytics query: the imperative and
+ * parallel-stream reference versions, the columnar, indexed and approximate
+ * variants, the fused summary and the equivalent StudentQuery forms.
+ *
+ * Run with "mvn -P benchmark test-compile". The default arguments enable the
+ * GC profiler, which adds gc.alloc.rate.norm (bytes allocated per query) to
+ * every score. Pass other JMH options through -Djmh.args, e.g.
+ * -Djmh.args="-prof gc -p size=4000000 -p names=100000 parallel.StudentAnalyticsBenchmark.mostCommon".
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StudentAnalyticsBenchmark {
+
+    /**
+     * A random class of students, 30% of them enrolled, in every layout the
+     * queries accept. First and last names are each drawn from a pool of
+     * the given number of distinct names.
+     */
+    @State(Scope.Benchmark)
+    public static class Dataset {
+        @Param({"100000", "1000000", "4000000"})
+        public int size;
+
+        @Param({"6", "1000", "100000"})
+        public int names;
+
+        Student[] students;
+        StudentTable table;
+        StudentBitmapIndex index;
+        StudentQuery failedQuery;
+        StudentQuery enrolledQuery;
+        StudentQuery inactiveQuery;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            final Random r = new Random(123);
+            students = new Student[size];
+            for (int s = 0; s < size; s++) {
+                students[s] = new Student("first" + r.nextInt(names), "last" + r.nextInt(names),
+                        r.nextDouble() * 100.0, 1 + r.nextInt(100), s < size * 3 / 10);
+            }
+            table = StudentTable.fromStudents(students);
+            index = StudentBitmapIndex.build(table);
+            failedQuery = StudentQuery.where(StudentQuery.CURRENT.eq(false)).and(StudentQuery.AGE.gt(20))
+                .and(StudentQuery.GRADE.lt(65));
+            enrolledQuery = StudentQuery.where(StudentQuery.CURRENT.eq(true));
+            inactiveQuery = StudentQuery.where(StudentQuery.CURRENT.eq(false));
+        }
+    }
+
+    private final StudentAnalytics analytics = new StudentAnalytics();
+
+    @Benchmark
+    public double averageAgeImperative(final Dataset d) {
+        return analytics.averageAgeOfEnrolledStudentsImperative(d.students);
+    }
+
+    @Benchmark
+    public double averageAgeParallelStream(final Dataset d) {
+        return analytics.averageAgeOfEnrolledStudentsParallelStream(d.students);
+    }
+
+    @Benchmark
+    public double averageAgeColumnar(final Dataset d) {
+        return analytics.averageAgeOfEnrolledStudentsColumnar(d.table);
+    }
+
+    @Benchmark
+    public double averageAgeQuery(final Dataset d) {
+        return d.enrolledQuery.averageAge(d.table);
+    }
+
+    @Benchmark
+    public String mostCommonImperative(final Dataset d) {
+        return analytics.mostCommonFirstNameOfInactiveStudentsImperative(d.students);
+    }
+
+    @Benchmark
+    public String mostCommonParallelStream(final Dataset d) {
+        return analytics.mostCommonFirstNameOfInactiveStudentsParallelStream(d.students);
+    }
+
+    @Benchmark
+    public String mostCommonColumnar(final Dataset d) {
+        return analytics.mostCommonFirstNameOfInactiveStudentsColumnar(d.table);
+    }
+
+    @Benchmark
+    public String mostCommonApproximate(final Dataset d) {
+        return analytics.mostCommonFirstNameOfInactiveStudentsApproximate(d.students, 0.001);
+    }
+
+    @Benchmark
+    public String mostCommonQuery(final Dataset d) {
+        return d.inactiveQuery.mostCommonFirstName(d.table);
+    }
+
+    @Benchmark
+    public int failedCountImperative(final Dataset d) {
+        return analytics.countNumberOfFailedStudentsOlderThan20Imperative(d.students);
+    }
+
+    @Benchmark
+    public int failedCountParallelStream(final Dataset d) {
+        return analytics.countNumberOfFailedStudentsOlderThan20ParallelStream(d.students);
+    }
+
+    @Benchmark
+    public int failedCountColumnar(final Dataset d) {
+        return analytics.countNumberOfFailedStudentsOlderThan20Columnar(d.table);
+    }
+
+    @Benchmark
+    public int failedCountIndexed(final Dataset d) {
+        return analytics.countNumberOfFailedStudentsOlderThan20Indexed(d.index);
+    }
+
+    @Benchmark
+    public int failedCountQuery(final Dataset d) {
+        return d.failedQuery.count(d.table);
+    }
+
+    @Benchmark
+    public StudentSummary summarizeParallelStream(final Dataset d) {
+        return analytics.summarizeParallelStream(d.students);
+    }
+}
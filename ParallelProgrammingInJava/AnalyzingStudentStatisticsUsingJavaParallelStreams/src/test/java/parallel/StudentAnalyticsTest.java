@@ -1,6 +1,17 @@
 package parallel;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 
 import junit.framework.TestCase;
 
@@ -25,9 +36,16 @@ public class StudentAnalyticsTest extends TestCase {
      * @return an array of Student objects
      */
     private Student[] generateStudentData() {
-        final int N_STUDENTS = 2000000;
-        final int N_CURRENT_STUDENTS = 600000;
+        return generateStudentData(2000000, 600000);
+    }
 
+    /**
+     * Generates an array of Student data of a given size.
+     * @param N_STUDENTS the number of students to generate
+     * @param N_CURRENT_STUDENTS the number of those students that are currently enrolled
+     * @return an array of Student objects
+     */
+    private Student[] generateStudentData(final int N_STUDENTS, final int N_CURRENT_STUDENTS) {
         Student[] students = new Student[N_STUDENTS];
         Random r = new Random(123);
 
@@ -184,4 +202,594 @@ public class StudentAnalyticsTest extends TestCase {
         String msg = "Expected parallel version to run at least 1.2x faster but speedup was " + speedup;
         assertTrue(msg, speedup > 1.2);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test correctness of the columnar implementations against the imperative ones, on a size that is not a
+     * multiple of 64 so the last bitset word is partial.
+     */
+    public void testColumnarQueries() {
+        final Student[] students = generateStudentData(300001, 90001);
+        final StudentTable table = StudentTable.fromStudents(students);
+        final StudentAnalytics analytics = new StudentAnalytics();
+
+        assertEquals(students.length, table.size());
+        for (int i = 0; i < students.length; i += 997) {
+            final Student s = table.getStudent(i);
+            assertEquals(students[i].getFirstName(), s.getFirstName());
+            assertEquals(students[i].getLastName(), s.getLastName());
+            assertEquals(students[i].getAge(), s.getAge(), 0.0);
+            assertEquals(students[i].getGrade(), s.getGrade());
+            assertEquals(students[i].getIsCurrent(), s.getIsCurrent());
+        }
+
+        final double refAge = analytics.averageAgeOfEnrolledStudentsImperative(students);
+        final double calcAge = analytics.averageAgeOfEnrolledStudentsColumnar(table);
+        assertTrue("Expected " + refAge + " but found " + calcAge, Math.abs(calcAge - refAge) < 1E-5);
+
+        assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsImperative(students),
+                analytics.mostCommonFirstNameOfInactiveStudentsColumnar(table));
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                analytics.countNumberOfFailedStudentsOlderThan20Columnar(table));
+    }
+
+    /**
+     * Test CompressedBitmap set operations across array and bitmap containers, and indexed counts against the
+     * imperative query.
+     */
+    public void testBitmapIndex() {
+        final CompressedBitmap.Builder evens = new CompressedBitmap.Builder();
+        final CompressedBitmap.Builder sparse = new CompressedBitmap.Builder();
+        for (int i = 0; i < 300000; i += 2) {
+            evens.add(i);
+        }
+        for (int i = 0; i < 300000; i += 99) {
+            sparse.add(i);
+        }
+        final CompressedBitmap a = evens.build();
+        final CompressedBitmap b = sparse.build();
+        assertEquals(150000, a.cardinality());
+        assertEquals(3031, b.cardinality());
+        assertEquals(1516, a.and(b).cardinality());
+        assertEquals(a.cardinality() + b.cardinality() - 1516, a.or(b).cardinality());
+        assertEquals(a.cardinality(), a.and(a).cardinality());
+        assertTrue(a.and(b).contains(198));
+        assertFalse(a.and(b).contains(99));
+        final long[] sum = new long[1];
+        b.forEach(i -> sum[0] += i);
+        assertEquals(99L * 3030 * 3031 / 2, sum[0]);
+
+        final Student[] students = generateStudentData(300001, 90001);
+        final StudentTable table = StudentTable.fromStudents(students);
+        final StudentAnalytics analytics = new StudentAnalytics();
+        final StudentBitmapIndex index = StudentBitmapIndex.build(table);
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                analytics.countNumberOfFailedStudentsOlderThan20Indexed(index));
+
+        final StudentBitmapIndex coarse = StudentBitmapIndex.build(table, 7.5, 13);
+        final int[] ageBounds = {-1, 0, 20, 37, 99, 150};
+        final int[] gradeBounds = {-1, 1, 50, 65, 101};
+        for (int ageBound : ageBounds) {
+            for (int gradeBound : gradeBounds) {
+                long expected = 0;
+                for (Student s : students) {
+                    if (!s.getIsCurrent() && s.getAge() > ageBound && s.getGrade() < gradeBound) {
+                        expected++;
+                    }
+                }
+                assertEquals(expected, coarse.inactive().and(coarse.ageGreaterThan(ageBound))
+                        .and(coarse.gradeLessThan(gradeBound)).cardinality());
+            }
+        }
+    }
+
+    /**
+     * Test the error bound of merged HeavyHitterSketch instances on a high-cardinality stream, and the approximate
+     * most common name query.
+     */
+    public void testHeavyHitterSketch() {
+        final int nNames = 100000;
+        final Random r = new Random(7);
+        final String[] stream = new String[500000];
+        for (int i = 0; i < stream.length; i++) {
+            // Roughly Zipfian: name k is drawn with probability proportional to 1 / (k + 1)
+            final int k = (int) Math.pow(nNames, r.nextDouble()) - 1;
+            stream[i] = "name" + k;
+        }
+        final Map<String, Long> exact = Arrays.stream(stream)
+            .collect(Collectors.groupingBy(s -> s, Collectors.counting()));
+
+        final double epsilon = 0.001;
+        final HeavyHitterSketch merged = HeavyHitterSketch.withError(epsilon);
+        for (int part = 0; part < 8; part++) {
+            final HeavyHitterSketch sketch = HeavyHitterSketch.withError(epsilon);
+            for (int i = part; i < stream.length; i += 8) {
+                sketch.offer(stream[i]);
+            }
+            merged.merge(sketch);
+        }
+        assertEquals(stream.length, merged.getTotal());
+        assertTrue(merged.maxError() <= epsilon * stream.length);
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            final long estimate = merged.estimate(entry.getKey());
+            assertTrue(estimate <= entry.getValue());
+            assertTrue(entry.getValue() - estimate <= merged.maxError());
+        }
+        assertEquals("name0", merged.mostFrequent());
+
+        final Student[] students = generateStudentData(400000, 100000);
+        for (int i = 100000; i < students.length; i++) {
+            final Student s = students[i];
+            final String firstName = i % 3 == 0 ? "Max" : i % 3 == 1 ? s.getFirstName() : "unique" + i;
+            students[i] = new Student(firstName, s.getLastName(), s.getAge(), s.getGrade(), false);
+        }
+        final StudentAnalytics analytics = new StudentAnalytics();
+        assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsImperative(students),
+                analytics.mostCommonFirstNameOfInactiveStudentsApproximate(students, 0.01));
+    }
+
+    /**
+     * Test that StudentLoader round-trips students through CSV and the binary format, and parses hand-written
+     * CSV exactly.
+     */
+    public void testStudentLoader() throws IOException {
+        final Student[] students = generateStudentData(300001, 90001);
+        final Path csv = Files.createTempFile("students", ".csv");
+        final Path bin = Files.createTempFile("students", ".bin");
+        try {
+            StudentLoader.writeCsv(csv, students);
+            final Student[] loaded = StudentLoader.loadStudents(csv);
+            assertEquals(students.length, loaded.length);
+            for (int i = 0; i < students.length; i++) {
+                assertEquals(students[i].getFirstName(), loaded[i].getFirstName());
+                assertEquals(students[i].getLastName(), loaded[i].getLastName());
+                assertEquals(students[i].getAge(), loaded[i].getAge(), 0.0);
+                assertEquals(students[i].getGrade(), loaded[i].getGrade());
+                assertEquals(students[i].getIsCurrent(), loaded[i].getIsCurrent());
+            }
+
+            final StudentTable table = StudentLoader.loadCsv(csv);
+            StudentLoader.writeBinary(bin, table);
+            final StudentTable reloaded = StudentLoader.loadBinary(bin);
+            final StudentAnalytics analytics = new StudentAnalytics();
+            assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                    analytics.countNumberOfFailedStudentsOlderThan20Columnar(reloaded));
+            assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsImperative(students),
+                    analytics.mostCommonFirstNameOfInactiveStudentsColumnar(reloaded));
+            for (int i = 0; i < students.length; i += 997) {
+                assertEquals(students[i].getFirstName(), reloaded.getStudent(i).getFirstName());
+                assertEquals(students[i].getAge(), reloaded.getStudent(i).getAge(), 0.0);
+                assertEquals(students[i].getIsCurrent(), reloaded.isCurrent(i));
+            }
+
+            Files.write(csv, ("Zo\u00eb,Smith,20.5,70,true\r\n\nMax,Grossman,-0.1,-3,0\n"
+                        + "Max,Imam,1.5e1,100,FALSE\nMax,Zhang,0.1234567890123456789,65,1").getBytes(StandardCharsets.UTF_8));
+            final Student[] small = StudentLoader.loadStudents(csv);
+            assertEquals(4, small.length);
+            assertEquals("Zo\u00eb", small[0].getFirstName());
+            assertEquals(20.5, small[0].getAge(), 0.0);
+            assertTrue(small[0].getIsCurrent());
+            assertEquals(-0.1, small[1].getAge(), 0.0);
+            assertEquals(-3, small[1].getGrade());
+            assertFalse(small[1].getIsCurrent());
+            assertEquals(15.0, small[2].getAge(), 0.0);
+            assertEquals(0.1234567890123456789, small[3].getAge(), 0.0);
+            assertEquals("Zhang", small[3].getLastName());
+
+            Files.write(csv, (StudentLoader.HEADER + "\r\nMax,Smith,20,70,True\r\n").getBytes(StandardCharsets.UTF_8));
+            final Student[] crlf = StudentLoader.loadStudents(csv);
+            assertEquals(1, crlf.length);
+            assertTrue(crlf[0].getIsCurrent());
+
+            // A header with no newline and nothing after it is an empty dataset
+            Files.write(csv, StudentLoader.HEADER.getBytes(StandardCharsets.UTF_8));
+            assertEquals(0, StudentLoader.loadStudents(csv).length);
+
+            // Corrupt dictionary counts and name lengths are reported as IOException
+            StudentLoader.writeBinary(bin, StudentTable.fromStudents(small));
+            final byte[] good = Files.readAllBytes(bin);
+            final int[][] corruptions = {{12, Integer.MAX_VALUE}, {16, -1}, {32, -5}, {32, Integer.MAX_VALUE},
+                {32, 1000}};
+            for (int[] corruption : corruptions) {
+                final byte[] bad = good.clone();
+                ByteBuffer.wrap(bad).putInt(corruption[0], corruption[1]);
+                Files.write(bin, bad);
+                try {
+                    StudentLoader.loadBinary(bin);
+                    fail("Expected corrupt field at byte " + corruption[0] + " to be rejected");
+                } catch (IOException e) {
+                    assertTrue(e.getMessage(), e.getMessage().contains("corrupt"));
+                }
+            }
+
+            // Every digit count Double.toString produces parses to the same double
+            final Random r = new Random(17);
+            for (int i = 0; i < 200000; i++) {
+                final double expected = i % 2 == 0 ? r.nextDouble() * 100.0
+                    : (1.0 + r.nextDouble()) * Math.pow(10, r.nextInt(10) - 3);
+                final byte[] text = Double.toString(expected).getBytes(StandardCharsets.US_ASCII);
+                assertEquals(Double.toString(expected), expected,
+                        StudentLoader.parseDouble(ByteBuffer.wrap(text), 0, text.length), 0.0);
+            }
+            for (String text : new String[] {"9007199254740993", "0.30000000000000004", "12345678901234567",
+                    "99.999999999999999", "1.0000000000000002", "2.2250738585072014E-308"}) {
+                final byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+                assertEquals(text, Double.parseDouble(text),
+                        StudentLoader.parseDouble(ByteBuffer.wrap(bytes), 0, bytes.length), 0.0);
+            }
+
+            Files.write(csv, "Max,Smith,twenty,70,true\n".getBytes(StandardCharsets.UTF_8));
+            try {
+                StudentLoader.loadCsv(csv);
+                fail("Expected a malformed line to be rejected");
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("byte 0"));
+            }
+        } finally {
+            Files.delete(csv);
+            Files.delete(bin);
+        }
+    }
+
+    /**
+     * Test StudentQuery aggregates against the built-in queries and a brute-force filter.
+     */
+    public void testStudentQuery() {
+        final Student[] students = generateStudentData(300001, 90001);
+        final StudentTable table = StudentTable.fromStudents(students);
+        final StudentAnalytics analytics = new StudentAnalytics();
+
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                StudentQuery.where(StudentQuery.CURRENT.eq(false)).and(StudentQuery.AGE.gt(20))
+                    .and(StudentQuery.GRADE.lt(65)).count(table));
+        final double refAge = analytics.averageAgeOfEnrolledStudentsImperative(students);
+        final double calcAge = StudentQuery.where(StudentQuery.CURRENT.eq(true)).averageAge(table);
+        assertTrue("Expected " + refAge + " but found " + calcAge, Math.abs(calcAge - refAge) < 1E-5);
+        assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsImperative(students),
+                StudentQuery.where(StudentQuery.CURRENT.eq(false)).mostCommonFirstName(table));
+        assertEquals(students.length, StudentQuery.all().count(table));
+
+        final StudentQuery query = StudentQuery.where(StudentQuery.AGE.ge(30)).and(StudentQuery.AGE.lt(40.5))
+            .and(StudentQuery.GRADE.between(20.5, 80)).and(StudentQuery.LAST_NAME.eq("Smith"));
+        long count = 0;
+        long gradeSum = 0;
+        for (Student s : students) {
+            if (s.getAge() >= 30 && s.getAge() < 40.5 && s.getGrade() > 20 && s.getGrade() <= 80
+                    && s.getLastName().equals("Smith")) {
+                count++;
+                gradeSum += s.getGrade();
+            }
+        }
+        assertEquals(count, query.count(table));
+        assertEquals((double) gradeSum / count, query.averageGrade(table), 1E-9);
+
+        assertEquals(0, StudentQuery.where(StudentQuery.CURRENT.eq(true)).and(StudentQuery.CURRENT.eq(false))
+                .count(table));
+        assertEquals(0, StudentQuery.where(StudentQuery.AGE.gt(50)).and(StudentQuery.AGE.lt(50)).count(table));
+        assertEquals(0, StudentQuery.where(StudentQuery.FIRST_NAME.eq("Nobody")).count(table));
+        assertNull(StudentQuery.where(StudentQuery.GRADE.gt(Double.NaN)).mostCommonFirstName(table));
+        assertEquals(0.0, StudentQuery.where(StudentQuery.FIRST_NAME.eq("Max"))
+                .and(StudentQuery.FIRST_NAME.eq("John")).averageAge(table), 0.0);
+    }
+
+    /**
+     * Test group-by statistics against a sequential reference for each kind of key.
+     */
+    public void testGroupBy() {
+        final Student[] students = generateStudentData(300001, 90001);
+        final StudentTable table = StudentTable.fromStudents(students);
+        final StudentAnalytics analytics = new StudentAnalytics();
+
+        final StudentGroups byName = analytics.groupBy(table, StudentQuery.where(StudentQuery.CURRENT.eq(false)),
+                GroupKey.firstName(), StudentGroups.Measure.AGE);
+        assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsImperative(students),
+                byName.label(byName.largest()));
+
+        final StudentGroups byGrade = analytics.groupBy(table, StudentQuery.all(), GroupKey.gradeBucket(10),
+                StudentGroups.Measure.GRADE);
+        assertEquals(11, byGrade.size());
+        assertEquals("0", byGrade.label(0));
+        final StudentGroups byAge = analytics.groupBy(table, StudentQuery.where(StudentQuery.GRADE.lt(65)),
+                GroupKey.ageBand(7.5), StudentGroups.Measure.AGE);
+        final StudentGroups byStatus = analytics.groupBy(table, StudentQuery.all(), GroupKey.enrollment(),
+                StudentGroups.Measure.AGE);
+        assertEquals(90001, byStatus.count(byStatus.indexOf("current")));
+        final double refAge = analytics.averageAgeOfEnrolledStudentsImperative(students);
+        assertEquals(refAge, byStatus.average(byStatus.indexOf("current")), 1E-5);
+
+        for (int g = 0; g < byGrade.size(); g++) {
+            long count = 0;
+            long sum = 0;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (Student s : students) {
+                if (s.getGrade() / 10 == g) {
+                    count++;
+                    sum += s.getGrade();
+                    min = Math.min(min, s.getGrade());
+                    max = Math.max(max, s.getGrade());
+                }
+            }
+            assertEquals(count, byGrade.count(g));
+            assertEquals((double) sum, byGrade.sum(g), 0.0);
+            assertEquals(count == 0 ? Double.POSITIVE_INFINITY : min, byGrade.min(g), 0.0);
+            assertEquals(count == 0 ? Double.NEGATIVE_INFINITY : max, byGrade.max(g), 0.0);
+        }
+        for (int g = 0; g < byAge.size(); g++) {
+            final double lower = Double.parseDouble(byAge.label(g));
+            long count = 0;
+            double max = Double.NEGATIVE_INFINITY;
+            for (Student s : students) {
+                if (s.getGrade() < 65 && s.getAge() >= lower && s.getAge() < lower + 7.5) {
+                    count++;
+                    max = Math.max(max, s.getAge());
+                }
+            }
+            assertEquals(count, byAge.count(g));
+            assertEquals(max, byAge.max(g), 0.0);
+        }
+    }
+
+    /**
+     * Test that CachingStudentAnalytics reuses results until the dataset changes, evicts least recently used
+     * results, and computes a query once when several callers miss on it together.
+     */
+    public void testCachingStudentAnalytics() throws InterruptedException {
+        final Student[] students = generateStudentData(100000, 30000);
+        final StudentDataset dataset = new StudentDataset(students);
+        final CachingStudentAnalytics cached = new CachingStudentAnalytics(dataset, 3);
+        final StudentAnalytics analytics = new StudentAnalytics();
+
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                cached.countNumberOfFailedStudentsOlderThan20());
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                cached.countNumberOfFailedStudentsOlderThan20());
+        assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsImperative(students),
+                cached.mostCommonFirstNameOfInactiveStudents());
+        assertEquals(1, cached.hits());
+        assertEquals(2, cached.misses());
+
+        // Equal queries built separately share one entry
+        final int young = cached.count(StudentQuery.where(StudentQuery.AGE.lt(30)).and(StudentQuery.GRADE.ge(50)));
+        assertEquals(young, cached.count(StudentQuery.where(StudentQuery.GRADE.ge(50)).and(StudentQuery.AGE.lt(30))));
+        assertEquals(2, cached.hits());
+        assertEquals(3, cached.size());
+
+        // A fourth result evicts the least recently used one, the failed count
+        cached.averageAgeOfEnrolledStudents();
+        assertEquals(3, cached.size());
+        cached.mostCommonFirstNameOfInactiveStudents();
+        assertEquals(3, cached.hits());
+        cached.countNumberOfFailedStudentsOlderThan20();
+        assertEquals(3, cached.hits());
+        assertEquals(5, cached.misses());
+
+        // Any change invalidates every result
+        final Student s = students[0];
+        dataset.set(0, new Student(s.getFirstName(), s.getLastName(), 21, 10, false));
+        final Student[] changed = dataset.snapshot().getStudents();
+        assertEquals(1, dataset.version());
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(changed),
+                cached.countNumberOfFailedStudentsOlderThan20());
+        assertEquals(6, cached.misses());
+        assertEquals(1, cached.size());
+        dataset.addAll(new Student("Max", "Smith", 40, 20, false));
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(changed) + 1,
+                cached.countNumberOfFailedStudentsOlderThan20());
+
+        // Concurrent misses on one query compute it once and share the result
+        final AtomicInteger computed = new AtomicInteger();
+        final Integer[] results = new Integer[8];
+        final Thread[] threads = new Thread[results.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int slot = t;
+            threads[t] = new Thread(() -> results[slot] = cached.query("slow", snapshot -> {
+                computed.incrementAndGet();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return snapshot.getStudents().length;
+            }));
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, computed.get());
+        for (Integer result : results) {
+            assertEquals(Integer.valueOf(students.length + 1), result);
+        }
+
+        // Concurrent first uses of a snapshot's table share one build
+        dataset.addAll(new Student("Ada", "Smith", 30, 90, true));
+        final StudentDataset.Snapshot fresh = dataset.snapshot();
+        final StudentTable[] tables = new StudentTable[threads.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int slot = t;
+            threads[t] = new Thread(() -> tables[slot] = fresh.getTable());
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (StudentTable table : tables) {
+            assertSame(tables[0], table);
+        }
+    }
+
+    /**
+     * Test the accuracy of HyperLogLog at small and large cardinalities, that merged sketches match a single one, and
+     * the approximate distinct-name queries.
+     */
+    public void testHyperLogLog() {
+        // Linear counting is close to exact for a handful of values
+        final HyperLogLog small = new HyperLogLog();
+        for (int i = 0; i < 1000; i++) {
+            small.offer(firstNames[i % firstNames.length]);
+        }
+        assertEquals(firstNames.length, small.estimate());
+
+        final int nDistinct = 200000;
+        final HyperLogLog whole = new HyperLogLog();
+        final HyperLogLog[] parts = new HyperLogLog[4];
+        for (int p = 0; p < parts.length; p++) {
+            parts[p] = new HyperLogLog();
+        }
+        for (int i = 0; i < 2 * nDistinct; i++) {
+            final String s = "name" + (i % nDistinct);
+            whole.offer(s);
+            parts[i % parts.length].offer(s);
+        }
+        for (int p = 1; p < parts.length; p++) {
+            parts[0].merge(parts[p]);
+        }
+        assertEquals(whole.estimate(), parts[0].estimate());
+        final double error = Math.abs(whole.estimate() - nDistinct) / (double) nDistinct;
+        assertTrue("Relative error " + error + " exceeds 3%", error < 0.03);
+
+        final Random r = new Random(11);
+        final Student[] students = new Student[300000];
+        for (int s = 0; s < students.length; s++) {
+            students[s] = new Student("first" + r.nextInt(50000), "last" + r.nextInt(1000),
+                    r.nextDouble() * 100.0, 1 + r.nextInt(100), r.nextBoolean());
+        }
+        final StudentAnalytics analytics = new StudentAnalytics();
+        final long exactFirst = Arrays.stream(students).filter(s -> !s.getIsCurrent())
+            .map(Student::getFirstName).collect(Collectors.toSet()).size();
+        final long approxFirst = analytics.countDistinctFirstNamesApproximate(students, s -> !s.getIsCurrent());
+        assertTrue("Estimated " + approxFirst + " of " + exactFirst + " first names",
+                Math.abs(approxFirst - exactFirst) < exactFirst * 0.03);
+        final long approxLast = analytics.countDistinctLastNamesApproximate(students);
+        assertTrue("Estimated " + approxLast + " of 1000 last names", Math.abs(approxLast - 1000) < 30);
+        assertEquals(0, analytics.countDistinctLastNamesApproximate(students, s -> false));
+    }
+
+    /**
+     * Test that NameDictionary assigns dense codes in order of first appearance when shared by several threads.
+     */
+    public void testNameDictionary() throws InterruptedException {
+        final NameDictionary dictionary = new NameDictionary();
+        assertEquals(0, dictionary.intern("Max"));
+        assertEquals(1, dictionary.intern("Shams"));
+        assertEquals(0, dictionary.intern(new String("Max")));
+        assertEquals(-1, dictionary.codeOf("Vivek"));
+
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    dictionary.intern("name" + (i % 1000));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        final String[] names = dictionary.toArray();
+        assertEquals(1002, names.length);
+        for (int c = 0; c < names.length; c++) {
+            assertEquals(c, dictionary.codeOf(names[c]));
+        }
+    }
+
+    /**
+     * Test correctness of the fused summary, including registered aggregates, against the individual queries.
+     */
+    public void testSummarizeParallelStream() {
+        final Student[] students = generateStudentData(500000, 150000);
+        final StudentAnalytics analytics = new StudentAnalytics();
+
+        final Collector<Student, ?, Integer> maxGrade = Collectors.collectingAndThen(
+                Collectors.maxBy((a, b) -> Integer.compare(a.getGrade(), b.getGrade())), s -> s.get().getGrade());
+        final Collector<Student, ?, Long> smiths = Collectors.summingLong(
+                s -> s.getLastName().equals("Smith") ? 1L : 0L);
+        final List<Collector<Student, ?, ?>> aggregates = Arrays.asList(maxGrade, smiths);
+
+        final StudentSummary summary = analytics.summarizeParallelStream(students, aggregates);
+
+        final double refAge = analytics.averageAgeOfEnrolledStudentsImperative(students);
+        final double err = Math.abs(summary.getAverageAgeOfEnrolledStudents() - refAge);
+        assertTrue("Expected " + refAge + " but found " + summary.getAverageAgeOfEnrolledStudents(), err < 1E-5);
+        assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsImperative(students),
+                summary.getMostCommonFirstNameOfInactiveStudents());
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                summary.getNumberOfFailedStudentsOlderThan20());
+
+        long refSmiths = 0;
+        for (Student s : students) {
+            if (s.getLastName().equals("Smith")) {
+                refSmiths++;
+            }
+        }
+        assertEquals(Integer.valueOf(100), summary.get(maxGrade));
+        assertEquals(Long.valueOf(refSmiths), summary.get(smiths));
+    }
+
+    /**
+     * Check the statistics of a LiveStudentAnalytics against the imperative versions on the same students.
+     */
+    private void checkLive(final LiveStudentAnalytics live, final Student[] students) {
+        final StudentAnalytics analytics = new StudentAnalytics();
+        final double refAge = analytics.averageAgeOfEnrolledStudentsImperative(students);
+        final double err = Math.abs(live.averageAgeOfEnrolledStudents() - refAge);
+        assertTrue("Expected " + refAge + " but found " + live.averageAgeOfEnrolledStudents(), err < 1E-5);
+        assertEquals(analytics.mostCommonFirstNameOfInactiveStudentsImperative(students),
+                live.mostCommonFirstNameOfInactiveStudents());
+        assertEquals(analytics.countNumberOfFailedStudentsOlderThan20Imperative(students),
+                live.countNumberOfFailedStudentsOlderThan20());
+    }
+
+    /**
+     * Test that LiveStudentAnalytics stays correct through concurrent inserts, removals and updates.
+     */
+    public void testLiveStudentAnalytics() throws InterruptedException {
+        final Student[] students = generateStudentData(400000, 120000);
+        final LiveStudentAnalytics live = new LiveStudentAnalytics();
+        final int nThreads = 4;
+
+        Thread[] threads = new Thread[nThreads];
+        for (int t = 0; t < nThreads; t++) {
+            final int tid = t;
+            threads[t] = new Thread(() -> {
+                for (int i = tid; i < students.length; i += nThreads) {
+                    live.insert(students[i]);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        checkLive(live, students);
+
+        // Remove the second half, and turn every tenth remaining student into an inactive "Max" so the leader changes
+        final int kept = students.length / 2;
+        final Student[] remaining = Arrays.copyOf(students, kept);
+        threads = new Thread[nThreads];
+        for (int t = 0; t < nThreads; t++) {
+            final int tid = t;
+            threads[t] = new Thread(() -> {
+                for (int i = kept + tid; i < students.length; i += nThreads) {
+                    live.remove(students[i]);
+                }
+                for (int i = tid; i < kept; i += nThreads) {
+                    if (i % 10 == 0) {
+                        final Student s = remaining[i];
+                        final Student graduated = new Student("Max", s.getLastName(), s.getAge(), s.getGrade(),
+                                false);
+                        live.update(s, graduated);
+                        remaining[i] = graduated;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        checkLive(live, remaining);
+    }
+}
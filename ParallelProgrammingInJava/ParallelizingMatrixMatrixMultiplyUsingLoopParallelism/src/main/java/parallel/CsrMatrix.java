@@ -0,0 +1,197 @@
+package parallel;
+
+import java.util.Arrays;
+
+/**
+ * An immutable sparse matrix in compressed sparse row (CSR) form. The
+ * nonzeros of row i are stored at positions rowPtr[i] (inclusive) to
+ * rowPtr[i + 1] (exclusive) of colIdx and values, in increasing column order.
+ */
+public final class CsrMatrix {
+    /**
+     * Number of rows.
+     */
+    private final int rows;
+    /**
+     * Number of columns.
+     */
+    private final int cols;
+    /**
+     * Offsets into colIdx/values of the start of each row, with one extra
+     * trailing entry holding the total number of nonzeros.
+     */
+    private final int[] rowPtr;
+    /**
+     * Column index of each nonzero.
+     */
+    private final int[] colIdx;
+    /**
+     * Value of each nonzero.
+     */
+    private final double[] values;
+
+    /**
+     * Constructor. The arrays are used as-is, not copied.
+     *
+     * @param setRows Number of rows
+     * @param setCols Number of columns
+     * @param setRowPtr Row offsets, of length setRows + 1
+     * @param setColIdx Column index of each nonzero
+     * @param setValues Value of each nonzero
+     */
+    public CsrMatrix(final int setRows, final int setCols,
+            final int[] setRowPtr, final int[] setColIdx,
+            final double[] setValues) {
+        if (setRowPtr.length != setRows + 1) {
+            throw new IllegalArgumentException("rowPtr must have " + (setRows + 1)
+                    + " entries but has " + setRowPtr.length);
+        }
+        if (setColIdx.length != setValues.length
+                || setRowPtr[setRows] != setValues.length) {
+            throw new IllegalArgumentException("Inconsistent nonzero count");
+        }
+        this.rows = setRows;
+        this.cols = setCols;
+        this.rowPtr = setRowPtr;
+        this.colIdx = setColIdx;
+        this.values = setValues;
+    }
+
+    /**
+     * Build a CSR matrix from the nonzero entries of a dense matrix.
+     *
+     * @param dense A dense matrix with dimensions MxN
+     * @param M Number of rows
+     * @param N Number of columns
+     * @return The CSR form of dense
+     */
+    public static CsrMatrix fromDense(final double[][] dense, final int M,
+            final int N) {
+        final int[] rowPtr = new int[M + 1];
+        for (int i = 0; i < M; i++) {
+            int nnz = 0;
+            for (int j = 0; j < N; j++) {
+                if (dense[i][j] != 0.0) {
+                    nnz++;
+                }
+            }
+            rowPtr[i + 1] = rowPtr[i] + nnz;
+        }
+
+        final int[] colIdx = new int[rowPtr[M]];
+        final double[] values = new double[rowPtr[M]];
+        int next = 0;
+        for (int i = 0; i < M; i++) {
+            for (int j = 0; j < N; j++) {
+                if (dense[i][j] != 0.0) {
+                    colIdx[next] = j;
+                    values[next] = dense[i][j];
+                    next++;
+                }
+            }
+        }
+        return new CsrMatrix(M, N, rowPtr, colIdx, values);
+    }
+
+    /**
+     * Getter for the number of rows.
+     *
+     * @return Number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Getter for the number of columns.
+     *
+     * @return Number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Getter for the number of stored nonzeros.
+     *
+     * @return Number of nonzeros
+     */
+    public int getNonZeros() {
+        return values.length;
+    }
+
+    /**
+     * Split the rows into at most nChunks contiguous ranges holding roughly
+     * equal numbers of nonzeros, so that a few dense rows do not leave most
+     * tasks idle. Chunk c covers rows bounds[c] (inclusive) to bounds[c + 1]
+     * (exclusive); empty ranges are dropped.
+     *
+     * @param nChunks Maximum number of ranges, at least 1
+     * @return Row boundaries of each range
+     */
+    public int[] partitionByNonZeros(final int nChunks) {
+        if (nChunks < 1) {
+            throw new IllegalArgumentException("nChunks must be positive: "
+                    + nChunks);
+        }
+        final int nnz = getNonZeros();
+        final int[] bounds = new int[nChunks + 1];
+        int count = 1;
+        for (int c = 1; c < nChunks; c++) {
+            final int target = (int) ((long) nnz * c / nChunks);
+            int row = Arrays.binarySearch(rowPtr, bounds[count - 1], rows,
+                    target);
+            if (row < 0) {
+                row = -row - 1;
+            }
+            if (row > bounds[count - 1] && row < rows) {
+                bounds[count++] = row;
+            }
+        }
+        bounds[count++] = rows;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Compute rows [rowStart, rowEnd) of y = A x.
+     *
+     * @param x Dense input vector of length getCols()
+     * @param y Dense output vector of length getRows()
+     * @param rowStart First row, inclusive
+     * @param rowEnd Last row, exclusive
+     */
+    void multiplyVectorRows(final double[] x, final double[] y,
+            final int rowStart, final int rowEnd) {
+        for (int i = rowStart; i < rowEnd; i++) {
+            double sum = 0.0;
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                sum += values[p] * x[colIdx[p]];
+            }
+            y[i] = sum;
+        }
+    }
+
+    /**
+     * Compute rows [rowStart, rowEnd) of C = A x B for a dense B.
+     *
+     * @param B Dense input matrix with dimensions getCols() x N
+     * @param C Dense output matrix with dimensions getRows() x N
+     * @param N Number of columns in B and C
+     * @param rowStart First row, inclusive
+     * @param rowEnd Last row, exclusive
+     */
+    void multiplyMatrixRows(final double[][] B, final double[][] C,
+            final int N, final int rowStart, final int rowEnd) {
+        for (int i = rowStart; i < rowEnd; i++) {
+            final double[] cRow = C[i];
+            Arrays.fill(cRow, 0, N, 0.0);
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                final double aik = values[p];
+                final double[] bRow = B[colIdx[p]];
+                for (int j = 0; j < N; j++) {
+                    cRow[j] += aik * bRow[j];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package parallel;
+
+/**
+ * A dense single-precision matrix stored row-major in one contiguous float
+ * array. Element (i, j) lives at index i * cols + j.
+ */
+public final class FloatMatrix {
+    /**
+     * Number of rows.
+     */
+    private final int rows;
+    /**
+     * Number of columns.
+     */
+    private final int cols;
+    /**
+     * Row-major element storage.
+     */
+    private final float[] data;
+
+    /**
+     * Constructor for a zero-filled matrix.
+     *
+     * @param setRows Number of rows
+     * @param setCols Number of columns
+     */
+    public FloatMatrix(final int setRows, final int setCols) {
+        this.rows = setRows;
+        this.cols = setCols;
+        this.data = new float[setRows * setCols];
+    }
+
+    /**
+     * Getter for the number of rows.
+     *
+     * @return Number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Getter for the number of columns.
+     *
+     * @return Number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Read a single element.
+     *
+     * @param i Row index
+     * @param j Column index
+     * @return The element at (i, j)
+     */
+    public float get(final int i, final int j) {
+        return data[i * cols + j];
+    }
+
+    /**
+     * Write a single element.
+     *
+     * @param i Row index
+     * @param j Column index
+     * @param v The new value
+     */
+    public void set(final int i, final int j, final float v) {
+        data[i * cols + j] = v;
+    }
+
+    /**
+     * Getter for the backing array, for use by the multiply kernels.
+     *
+     * @return Row-major element storage
+     */
+    float[] getData() {
+        return data;
+    }
+}
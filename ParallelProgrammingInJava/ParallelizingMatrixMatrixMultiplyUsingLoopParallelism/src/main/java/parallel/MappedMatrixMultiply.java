@@ -0,0 +1,278 @@
+package parallel;
+
+import static edu.rice.pcdp.PCDP.forall2d;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Matrix multiply for operands that live in files rather than on the heap.
+ * Each matrix is stored as a row-major sequence of big-endian doubles (the
+ * format written by DataOutputStream.writeDouble), with no header.
+ *
+ * C is computed in tiles, one task per (row panel, column panel) pair, so
+ * there is parallelism even when C is a single tile wide and no barrier
+ * between steps along K. Row panels are processed in waves of enough panels
+ * to keep every worker busy: only the wave's rows of A and C are mapped, and
+ * B is mapped once in windows of whole tile rows. Each task copies its
+ * tiles of A and B into buffers owned by the worker thread, accumulates its
+ * tile of C in a third and writes it straight into the mapping of C, so the
+ * heap working set is three tiles per worker regardless of M, K and N.
+ * Mappings are dropped once their wave is done and are unmapped when
+ * collected.
+ */
+public final class MappedMatrixMultiply {
+    /**
+     * Size in bytes of one matrix element.
+     */
+    private static final int ELEMENT_BYTES = Double.BYTES;
+    /**
+     * Longest byte range mapped at once, other than a single panel.
+     */
+    private static final long MAX_MAPPING = 1L << 30;
+
+    /**
+     * Default constructor.
+     */
+    private MappedMatrixMultiply() {
+    }
+
+    /**
+     * Perform a two-dimensional matrix multiply (A x B = C) in parallel over
+     * memory-mapped files. C is created or overwritten.
+     *
+     * @param A File holding an input matrix with dimensions MxK
+     * @param B File holding an input matrix with dimensions KxN
+     * @param C File to write the output matrix with dimensions MxN to
+     * @param M Number of rows in A and C
+     * @param K Number of columns in A and rows in B
+     * @param N Number of columns in B and C
+     * @param tile Edge length of the square tiles C is computed in
+     * @throws IOException If any of the files cannot be read, written or
+     *         mapped
+     */
+    public static void parMatrixMultiply(final Path A, final Path B,
+            final Path C, final int M, final int K, final int N,
+            final int tile) throws IOException {
+        if (tile < 1) {
+            throw new IllegalArgumentException("tile must be positive: "
+                    + tile);
+        }
+        final long panelBytes = (long) tile * Math.max(K, N) * ELEMENT_BYTES;
+        if (panelBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A " + tile + "-row panel "
+                    + "exceeds the maximum size of a single mapping");
+        }
+
+        try (FileChannel aChannel = FileChannel.open(A,
+                    StandardOpenOption.READ);
+                FileChannel bChannel = FileChannel.open(B,
+                    StandardOpenOption.READ);
+                RandomAccessFile cFile = new RandomAccessFile(C.toFile(),
+                    "rw")) {
+            checkSize(aChannel, A, M, K);
+            checkSize(bChannel, B, K, N);
+            cFile.setLength((long) M * N * ELEMENT_BYTES);
+            final FileChannel cChannel = cFile.getChannel();
+
+            // Tiles beyond the matrix would only waste buffer space
+            final int edge = Math.min(tile,
+                    Math.max(1, Math.max(M, Math.max(K, N))));
+            final int nRowPanels = (M + edge - 1) / edge;
+            final int nColPanels = (N + edge - 1) / edge;
+            final int nKPanels = (K + edge - 1) / edge;
+
+            // B windows hold whole tile rows, so no K panel straddles two
+            final int bWindowRows = edge * Math.max(1,
+                    wholeMappingRows(N) / edge);
+            final int nBWindows = (K + bWindowRows - 1) / bWindowRows;
+            final DoubleBuffer[] bWindows = new DoubleBuffer[nBWindows];
+            for (int w = 0; w < nBWindows; w++) {
+                bWindows[w] = mapRows(bChannel, FileChannel.MapMode.READ_ONLY,
+                        w * bWindowRows,
+                        Math.min(bWindowRows, K - w * bWindowRows), N)
+                    .asDoubleBuffer();
+            }
+
+            final int tilesPerRowPanel = Math.max(1, nColPanels);
+            final int panelsPerWave = (int) Math.max(1, Math.min(
+                        (MatrixMultiply.defaultTaskCount() + tilesPerRowPanel
+                            - 1) / tilesPerRowPanel,
+                        MAX_MAPPING / ((long) edge * Math.max(1, Math.max(K, N))
+                            * ELEMENT_BYTES)));
+            final int tileElements = edge * edge;
+            final ThreadLocal<double[][]> buffers = ThreadLocal.withInitial(
+                    () -> new double[][] {new double[tileElements],
+                        new double[tileElements], new double[tileElements]});
+
+            for (int ip0 = 0; ip0 < nRowPanels; ip0 += panelsPerWave) {
+                final int waveRow = ip0 * edge;
+                final int waveRows = Math.min(panelsPerWave * edge,
+                        M - waveRow);
+                final int wavePanels = (waveRows + edge - 1) / edge;
+                final DoubleBuffer aWave = mapRows(aChannel,
+                        FileChannel.MapMode.READ_ONLY, waveRow, waveRows, K)
+                    .asDoubleBuffer();
+                final MappedByteBuffer cMapping = mapRows(cChannel,
+                        FileChannel.MapMode.READ_WRITE, waveRow, waveRows, N);
+                final DoubleBuffer cWave = cMapping.asDoubleBuffer();
+
+                forall2d(0, wavePanels - 1, 0, nColPanels - 1, (ip, jp) -> {
+                    final int i0 = ip * edge;
+                    final int rows = Math.min(edge, waveRows - i0);
+                    final int j0 = jp * edge;
+                    final int cols = Math.min(edge, N - j0);
+                    final double[][] tiles = buffers.get();
+                    final double[] aTile = tiles[0];
+                    final double[] bTile = tiles[1];
+                    final double[] cTile = tiles[2];
+                    Arrays.fill(cTile, 0.0);
+                    final DoubleBuffer a = aWave.duplicate();
+
+                    for (int kp = 0; kp < nKPanels; kp++) {
+                        final int k0 = kp * edge;
+                        final int depth = Math.min(edge, K - k0);
+                        for (int r = 0; r < rows; r++) {
+                            a.position((i0 + r) * K + k0);
+                            a.get(aTile, r * edge, depth);
+                        }
+                        final DoubleBuffer b =
+                            bWindows[k0 / bWindowRows].duplicate();
+                        final int bRow = k0 % bWindowRows;
+                        for (int r = 0; r < depth; r++) {
+                            b.position((bRow + r) * N + j0);
+                            b.get(bTile, r * edge, cols);
+                        }
+                        for (int i = 0; i < rows; i++) {
+                            final int cBase = i * edge;
+                            for (int k = 0; k < depth; k++) {
+                                final double aik = aTile[cBase + k];
+                                final int bBase = k * edge;
+                                for (int j = 0; j < cols; j++) {
+                                    cTile[cBase + j] += aik * bTile[bBase + j];
+                                }
+                            }
+                        }
+                    }
+
+                    final DoubleBuffer c = cWave.duplicate();
+                    for (int i = 0; i < rows; i++) {
+                        c.position((i0 + i) * N + j0);
+                        c.put(cTile, i * edge, cols);
+                    }
+                });
+                cMapping.force();
+            }
+        }
+    }
+
+    /**
+     * Write a matrix to a file in the format read by parMatrixMultiply.
+     *
+     * @param file Destination file, created or overwritten
+     * @param matrix The matrix with dimensions MxN
+     * @param M Number of rows
+     * @param N Number of columns
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeMatrix(final Path file, final double[][] matrix,
+            final int M, final int N) throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(file.toFile(), "rw")) {
+            out.setLength((long) M * N * ELEMENT_BYTES);
+            final int panelRows = wholeMappingRows(N);
+            for (int i0 = 0; i0 < M; i0 += panelRows) {
+                final int rows = Math.min(panelRows, M - i0);
+                final MappedByteBuffer mapping = mapRows(out.getChannel(),
+                        FileChannel.MapMode.READ_WRITE, i0, rows, N);
+                final DoubleBuffer panel = mapping.asDoubleBuffer();
+                for (int i = i0; i < i0 + rows; i++) {
+                    panel.put(matrix[i], 0, N);
+                }
+                mapping.force();
+            }
+        }
+    }
+
+    /**
+     * Read a matrix from a file in the format written by parMatrixMultiply.
+     *
+     * @param file Source file
+     * @param M Number of rows
+     * @param N Number of columns
+     * @return The matrix with dimensions MxN
+     * @throws IOException If the file cannot be read or has the wrong size
+     */
+    public static double[][] readMatrix(final Path file, final int M,
+            final int N) throws IOException {
+        try (FileChannel in = FileChannel.open(file,
+                    StandardOpenOption.READ)) {
+            checkSize(in, file, M, N);
+            final double[][] matrix = new double[M][N];
+            final int panelRows = wholeMappingRows(N);
+            for (int i0 = 0; i0 < M; i0 += panelRows) {
+                final int rows = Math.min(panelRows, M - i0);
+                final DoubleBuffer panel = mapRows(in,
+                        FileChannel.MapMode.READ_ONLY, i0, rows, N)
+                    .asDoubleBuffer();
+                for (int i = i0; i < i0 + rows; i++) {
+                    panel.get(matrix[i], 0, N);
+                }
+            }
+            return matrix;
+        }
+    }
+
+    /**
+     * Map a contiguous range of rows of a row-major matrix file.
+     *
+     * @param channel The open file
+     * @param mode Mapping mode
+     * @param firstRow First row to map
+     * @param rows Number of rows to map
+     * @param cols Number of columns in the matrix
+     * @return The mapping, positioned at the first element of firstRow
+     * @throws IOException If the file cannot be mapped
+     */
+    private static MappedByteBuffer mapRows(final FileChannel channel,
+            final FileChannel.MapMode mode, final int firstRow,
+            final int rows, final int cols) throws IOException {
+        final long rowBytes = (long) cols * ELEMENT_BYTES;
+        return channel.map(mode, firstRow * rowBytes, rows * rowBytes);
+    }
+
+    /**
+     * Number of rows mapped at once when reading or writing a whole matrix.
+     *
+     * @param cols Number of columns in the matrix
+     * @return Rows per mapping, at least 1
+     */
+    private static int wholeMappingRows(final int cols) {
+        return (int) Math.max(1,
+                MAX_MAPPING / Math.max(1, (long) cols * ELEMENT_BYTES));
+    }
+
+    /**
+     * Check that a matrix file holds exactly rows x cols elements.
+     *
+     * @param channel The open file
+     * @param file Path of the file, for the error message
+     * @param rows Expected number of rows
+     * @param cols Expected number of columns
+     * @throws IOException If the file size cannot be read or is wrong
+     */
+    private static void checkSize(final FileChannel channel, final Path file,
+            final int rows, final int cols) throws IOException {
+        final long expected = (long) rows * cols * ELEMENT_BYTES;
+        if (channel.size() != expected) {
+            throw new IOException(file + " holds " + channel.size()
+                    + " bytes but a " + rows + "x" + cols + " matrix needs "
+                    + expected);
+        }
+    }
+}
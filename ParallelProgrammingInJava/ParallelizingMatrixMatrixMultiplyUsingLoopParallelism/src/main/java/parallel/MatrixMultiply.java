@@ -1,12 +1,35 @@
 package parallel;
 
+import static edu.rice.pcdp.PCDP.forall;
 import static edu.rice.pcdp.PCDP.forall2d;
 import static edu.rice.pcdp.PCDP.forseq2d;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Wrapper class for implementing matrix multiply efficiently in parallel.
  */
 public final class MatrixMultiply {
+    /**
+     * Edge length of the square tiles used by the blocked classical kernel.
+     * Three 64x64 tiles of doubles (96KB) fit comfortably in a typical L2.
+     */
+    public static final int BLOCK_SIZE = 64;
+
+    /**
+     * Default problem size at or below which the Strassen-Winograd recursion
+     * stops and hands off to the blocked classical kernel.
+     */
+    public static final int DEFAULT_STRASSEN_CUTOFF = 256;
+
+    /**
+     * Chunk size value asking parMatrixMultiply to choose the chunk size for
+     * that dimension itself.
+     */
+    public static final int AUTO_CHUNK = 0;
+
     /**
      * Default constructor.
      */
@@ -23,14 +46,45 @@ public final class MatrixMultiply {
      */
     public static void seqMatrixMultiply(final double[][] A, final double[][] B,
             final double[][] C, final int N) {
-        forseq2d(0, N - 1, 0, N - 1, (i, j) -> {
+        seqMatrixMultiply(A, B, C, N, N, N);
+    }
+
+    /**
+     * Perform a two-dimensional rectangular matrix multiply (A x B = C)
+     * sequentially.
+     *
+     * @param A An input matrix with dimensions MxK
+     * @param B An input matrix with dimensions KxN
+     * @param C The output matrix with dimensions MxN
+     * @param M Number of rows in A and C
+     * @param K Number of columns in A and rows in B
+     * @param N Number of columns in B and C
+     */
+    public static void seqMatrixMultiply(final double[][] A, final double[][] B,
+            final double[][] C, final int M, final int K, final int N) {
+        forseq2d(0, M - 1, 0, N - 1, (i, j) -> {
             C[i][j] = 0.0;
-            for (int k = 0; k < N; k++) {
+            for (int k = 0; k < K; k++) {
                 C[i][j] += A[i][k] * B[k][j];
             }
         });
     }
 
+    /**
+     * Perform a single-precision matrix multiply (A x B = C) sequentially.
+     *
+     * @param A An input matrix with dimensions MxK
+     * @param B An input matrix with dimensions KxN
+     * @param C The output matrix with dimensions MxN
+     */
+    public static void seqMatrixMultiply(final FloatMatrix A,
+            final FloatMatrix B, final FloatMatrix C) {
+        checkShapes(A, B, C);
+        for (int i = 0; i < A.getRows(); i++) {
+            multiplyFloatRow(A, B, C, i);
+        }
+    }
+
     /**
      * Perform a two-dimensional matrix multiply (A x B = C) in parallel.
      *
@@ -41,11 +95,640 @@ public final class MatrixMultiply {
      */
     public static void parMatrixMultiply(final double[][] A, final double[][] B,
             final double[][] C, final int N) {
-        forall2d(0, N - 1, 0, N - 1, (i, j) -> {
+        parMatrixMultiply(A, B, C, N, N, N);
+    }
+
+    /**
+     * Perform a two-dimensional rectangular matrix multiply (A x B = C) in
+     * parallel.
+     *
+     * @param A An input matrix with dimensions MxK
+     * @param B An input matrix with dimensions KxN
+     * @param C The output matrix with dimensions MxN
+     * @param M Number of rows in A and C
+     * @param K Number of columns in A and rows in B
+     * @param N Number of columns in B and C
+     */
+    public static void parMatrixMultiply(final double[][] A, final double[][] B,
+            final double[][] C, final int M, final int K, final int N) {
+        forall2d(0, M - 1, 0, N - 1, (i, j) -> {
             C[i][j] = 0.0;
-            for (int k = 0; k < N; k++) {
+            for (int k = 0; k < K; k++) {
                 C[i][j] += A[i][k] * B[k][j];
             }
         });
     }
+
+    /**
+     * Perform a two-dimensional rectangular matrix multiply (A x B = C) in
+     * parallel, with each task computing a rowChunk x colChunk block of C
+     * rather than a single cell. Larger chunks amortize scheduling overhead
+     * and let each task reuse rows of B from cache; smaller chunks expose
+     * more parallelism. Pass AUTO_CHUNK for either size to use full rows of C
+     * split into roughly four row blocks per worker thread. Chunks larger
+     * than the matrix are clamped to it.
+     *
+     * @param A An input matrix with dimensions MxK
+     * @param B An input matrix with dimensions KxN
+     * @param C The output matrix with dimensions MxN
+     * @param M Number of rows in A and C
+     * @param K Number of columns in A and rows in B
+     * @param N Number of columns in B and C
+     * @param rowChunk Rows of C per task, or AUTO_CHUNK
+     * @param colChunk Columns of C per task, or AUTO_CHUNK
+     */
+    public static void parMatrixMultiply(final double[][] A, final double[][] B,
+            final double[][] C, final int M, final int K, final int N,
+            final int rowChunk, final int colChunk) {
+        checkChunk(rowChunk);
+        checkChunk(colChunk);
+        final int rows = chunkSize(rowChunk, autoRowChunk(M), M);
+        final int cols = chunkSize(colChunk, N, N);
+        final int nRowChunks = (M + rows - 1) / rows;
+        final int nColChunks = (N + cols - 1) / cols;
+
+        forall2d(0, nRowChunks - 1, 0, nColChunks - 1, (bi, bj) -> {
+            final int iStart = bi * rows;
+            final int iEnd = Math.min(iStart + rows, M);
+            final int jStart = bj * cols;
+            final int jEnd = Math.min(jStart + cols, N);
+            for (int i = iStart; i < iEnd; i++) {
+                Arrays.fill(C[i], jStart, jEnd, 0.0);
+            }
+            multiplyTile(A, B, C, iStart, iEnd, 0, K, jStart, jEnd);
+        });
+    }
+
+    /**
+     * Perform a single-precision matrix multiply (A x B = C) in parallel,
+     * with one task per row of C.
+     *
+     * @param A An input matrix with dimensions MxK
+     * @param B An input matrix with dimensions KxN
+     * @param C The output matrix with dimensions MxN
+     */
+    public static void parMatrixMultiply(final FloatMatrix A,
+            final FloatMatrix B, final FloatMatrix C) {
+        parMatrixMultiply(A, B, C, 1);
+    }
+
+    /**
+     * Perform a single-precision matrix multiply (A x B = C) in parallel,
+     * with each task computing rowChunk contiguous rows of C. Pass AUTO_CHUNK
+     * to split C into roughly four row blocks per worker thread.
+     *
+     * @param A An input matrix with dimensions MxK
+     * @param B An input matrix with dimensions KxN
+     * @param C The output matrix with dimensions MxN
+     * @param rowChunk Rows of C per task, or AUTO_CHUNK
+     */
+    public static void parMatrixMultiply(final FloatMatrix A,
+            final FloatMatrix B, final FloatMatrix C, final int rowChunk) {
+        checkShapes(A, B, C);
+        checkChunk(rowChunk);
+        final int M = A.getRows();
+        final int rows = chunkSize(rowChunk, autoRowChunk(M), M);
+        final int nChunks = (M + rows - 1) / rows;
+        forall(0, nChunks - 1, (c) -> {
+            final int end = Math.min((c + 1) * rows, M);
+            for (int i = c * rows; i < end; i++) {
+                multiplyFloatRow(A, B, C, i);
+            }
+        });
+    }
+
+    /**
+     * Check that A, B and C have compatible shapes for A x B = C.
+     *
+     * @param A An input matrix
+     * @param B An input matrix
+     * @param C The output matrix
+     */
+    private static void checkShapes(final FloatMatrix A, final FloatMatrix B,
+            final FloatMatrix C) {
+        if (A.getCols() != B.getRows() || C.getRows() != A.getRows()
+                || C.getCols() != B.getCols()) {
+            throw new IllegalArgumentException("Incompatible shapes: "
+                    + A.getRows() + "x" + A.getCols() + " * "
+                    + B.getRows() + "x" + B.getCols() + " -> "
+                    + C.getRows() + "x" + C.getCols());
+        }
+    }
+
+    /**
+     * Compute row i of C = A x B in i-k-j order, streaming contiguous rows of
+     * B into a contiguous row of C so that the inner loop vectorizes.
+     *
+     * @param A An input matrix with dimensions MxK
+     * @param B An input matrix with dimensions KxN
+     * @param C The output matrix with dimensions MxN
+     * @param i The row of C to compute
+     */
+    private static void multiplyFloatRow(final FloatMatrix A,
+            final FloatMatrix B, final FloatMatrix C, final int i) {
+        final int K = A.getCols();
+        final int N = B.getCols();
+        final float[] a = A.getData();
+        final float[] b = B.getData();
+        final float[] c = C.getData();
+        final int cBase = i * N;
+        Arrays.fill(c, cBase, cBase + N, 0.0f);
+        for (int k = 0; k < K; k++) {
+            final float aik = a[i * K + k];
+            final int bBase = k * N;
+            for (int j = 0; j < N; j++) {
+                c[cBase + j] += aik * b[bBase + j];
+            }
+        }
+    }
+
+    /**
+     * Perform many independent matrix multiplies (As[b] x Bs[b] = Cs[b]) of
+     * the same shape in a single parallel pass. Parallelism is across the
+     * batch: each product is computed sequentially by one task, which avoids
+     * paying parallel loop overhead once per small product.
+     *
+     * @param As Input matrices, each with dimensions MxK
+     * @param Bs Input matrices, each with dimensions KxN
+     * @param Cs Output matrices, each with dimensions MxN
+     * @param M Number of rows in each A and C
+     * @param K Number of columns in each A and rows in each B
+     * @param N Number of columns in each B and C
+     */
+    public static void parBatchMatrixMultiply(final double[][][] As,
+            final double[][][] Bs, final double[][][] Cs, final int M,
+            final int K, final int N) {
+        if (As.length != Bs.length || As.length != Cs.length) {
+            throw new IllegalArgumentException("Batch sizes differ: "
+                    + As.length + ", " + Bs.length + ", " + Cs.length);
+        }
+        forall(0, As.length - 1, (b) -> {
+            final double[][] C = Cs[b];
+            for (int i = 0; i < M; i++) {
+                Arrays.fill(C[i], 0, N, 0.0);
+            }
+            multiplyTile(As[b], Bs[b], C, 0, M, 0, K, 0, N);
+        });
+    }
+
+    /**
+     * Perform a two-dimensional matrix multiply (A x B = C) sequentially,
+     * iterating over square tiles of BLOCK_SIZE so that the working set of the
+     * inner loops stays cache-resident. The inner loops run in i-k-j order so
+     * that B and C are both streamed along rows.
+     *
+     * @param A An input matrix with dimensions NxN
+     * @param B An input matrix with dimensions NxN
+     * @param C The output matrix
+     * @param N Size of each dimension of the input matrices
+     */
+    public static void seqBlockedMatrixMultiply(final double[][] A,
+            final double[][] B, final double[][] C, final int N) {
+        for (int i = 0; i < N; i++) {
+            Arrays.fill(C[i], 0, N, 0.0);
+        }
+        for (int ii = 0; ii < N; ii += BLOCK_SIZE) {
+            final int iEnd = Math.min(ii + BLOCK_SIZE, N);
+            for (int kk = 0; kk < N; kk += BLOCK_SIZE) {
+                final int kEnd = Math.min(kk + BLOCK_SIZE, N);
+                for (int jj = 0; jj < N; jj += BLOCK_SIZE) {
+                    final int jEnd = Math.min(jj + BLOCK_SIZE, N);
+                    multiplyTile(A, B, C, ii, iEnd, kk, kEnd, jj, jEnd);
+                }
+            }
+        }
+    }
+
+    /**
+     * Accumulate the product of one tile of A and one tile of B into C.
+     *
+     * @param A An input matrix
+     * @param B An input matrix
+     * @param C The output matrix, accumulated into
+     * @param iStart First row of C, inclusive
+     * @param iEnd Last row of C, exclusive
+     * @param kStart First column of A / row of B, inclusive
+     * @param kEnd Last column of A / row of B, exclusive
+     * @param jStart First column of C, inclusive
+     * @param jEnd Last column of C, exclusive
+     */
+    private static void multiplyTile(final double[][] A, final double[][] B,
+            final double[][] C, final int iStart, final int iEnd,
+            final int kStart, final int kEnd, final int jStart,
+            final int jEnd) {
+        for (int i = iStart; i < iEnd; i++) {
+            final double[] aRow = A[i];
+            final double[] cRow = C[i];
+            for (int k = kStart; k < kEnd; k++) {
+                final double aik = aRow[k];
+                final double[] bRow = B[k];
+                for (int j = jStart; j < jEnd; j++) {
+                    cRow[j] += aik * bRow[j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Perform a two-dimensional matrix multiply (A x B = C) in parallel using
+     * the Strassen-Winograd algorithm, with DEFAULT_STRASSEN_CUTOFF as the
+     * recursion cutoff.
+     *
+     * @param A An input matrix with dimensions NxN
+     * @param B An input matrix with dimensions NxN
+     * @param C The output matrix
+     * @param N Size of each dimension of the input matrices
+     */
+    public static void strassenMatrixMultiply(final double[][] A,
+            final double[][] B, final double[][] C, final int N) {
+        strassenMatrixMultiply(A, B, C, N, DEFAULT_STRASSEN_CUTOFF);
+    }
+
+    /**
+     * Perform a two-dimensional matrix multiply (A x B = C) in parallel using
+     * the Strassen-Winograd algorithm. Each level of the recursion splits the
+     * operands into quadrants and forks the seven quadrant products as
+     * separate fork-join tasks, on the calling thread's ForkJoinPool if it has
+     * one and the common pool otherwise. Sub-problems of size cutoff or
+     * smaller, or of odd size, are computed with seqBlockedMatrixMultiply.
+     *
+     * Strassen-Winograd trades eight multiplies for seven at each level at
+     * the cost of extra additions and temporaries, so results may differ from
+     * the classical kernels in the last few bits for non-integral inputs.
+     *
+     * @param A An input matrix with dimensions NxN
+     * @param B An input matrix with dimensions NxN
+     * @param C The output matrix
+     * @param N Size of each dimension of the input matrices
+     * @param cutoff Problem size at or below which to stop recursing
+     */
+    public static void strassenMatrixMultiply(final double[][] A,
+            final double[][] B, final double[][] C, final int N,
+            final int cutoff) {
+        if (cutoff < 1) {
+            throw new IllegalArgumentException("cutoff must be positive: "
+                    + cutoff);
+        }
+        new StrassenTask(A, B, C, N, cutoff).invoke();
+    }
+
+    /**
+     * Compute the matrix-vector product y = A x in parallel. Rows of A are
+     * split into contiguous ranges and each task computes the dot products
+     * for its range.
+     *
+     * @param A An input matrix with dimensions MxN
+     * @param x An input vector of length N
+     * @param y The output vector of length M
+     * @param M Number of rows in A
+     * @param N Number of columns in A
+     */
+    public static void parMatVec(final double[][] A, final double[] x,
+            final double[] y, final int M, final int N) {
+        parMatVec(A, x, y, M, N, AUTO_CHUNK);
+    }
+
+    /**
+     * Compute the matrix-vector product y = A x in parallel, with each task
+     * computing rowChunk contiguous entries of y. Pass AUTO_CHUNK to split y
+     * into roughly four ranges per worker thread.
+     *
+     * @param A An input matrix with dimensions MxN
+     * @param x An input vector of length N
+     * @param y The output vector of length M
+     * @param M Number of rows in A
+     * @param N Number of columns in A
+     * @param rowChunk Rows of A per task, or AUTO_CHUNK
+     */
+    public static void parMatVec(final double[][] A, final double[] x,
+            final double[] y, final int M, final int N, final int rowChunk) {
+        checkChunk(rowChunk);
+        final int rows = chunkSize(rowChunk, autoRowChunk(M), M);
+        final int nChunks = (M + rows - 1) / rows;
+        forall(0, nChunks - 1, (c) -> {
+            final int end = Math.min((c + 1) * rows, M);
+            for (int i = c * rows; i < end; i++) {
+                final double[] aRow = A[i];
+                double sum = 0.0;
+                for (int j = 0; j < N; j++) {
+                    sum += aRow[j] * x[j];
+                }
+                y[i] = sum;
+            }
+        });
+    }
+
+    /**
+     * Compute the transposed matrix-vector product y = A^T x in parallel
+     * without forming A^T. Each of parallelism() tasks walks a contiguous
+     * range of rows of A and scales them into its own partial copy of y, so
+     * rows are read contiguously and no two tasks write the same element. A
+     * second column-partitioned parallel loop then sums the partials into y.
+     *
+     * @param A An input matrix with dimensions MxN
+     * @param x An input vector of length M
+     * @param y The output vector of length N
+     * @param M Number of rows in A
+     * @param N Number of columns in A
+     */
+    public static void parTransposeMatVec(final double[][] A, final double[] x,
+            final double[] y, final int M, final int N) {
+        final int nPartials = Math.max(1, Math.min(M, parallelism()));
+        final double[][] partials = new double[nPartials][N];
+        forall(0, nPartials - 1, (p) -> {
+            final double[] partial = partials[p];
+            final int end = getChunkStartInclusive(p + 1, nPartials, M);
+            for (int i = getChunkStartInclusive(p, nPartials, M); i < end; i++) {
+                final double xi = x[i];
+                final double[] aRow = A[i];
+                for (int j = 0; j < N; j++) {
+                    partial[j] += xi * aRow[j];
+                }
+            }
+        });
+
+        final int nChunks = Math.max(1, Math.min(N, defaultTaskCount()));
+        forall(0, nChunks - 1, (c) -> {
+            final int end = getChunkStartInclusive(c + 1, nChunks, N);
+            for (int j = getChunkStartInclusive(c, nChunks, N); j < end; j++) {
+                double sum = 0.0;
+                for (int p = 0; p < nPartials; p++) {
+                    sum += partials[p][j];
+                }
+                y[j] = sum;
+            }
+        });
+    }
+
+    /**
+     * Compute the sparse matrix-vector product y = A x in parallel. Rows are
+     * split into ranges of roughly equal nonzero count rather than equal row
+     * count.
+     *
+     * @param A A sparse input matrix with dimensions MxK
+     * @param x A dense input vector of length K
+     * @param y The dense output vector of length M
+     */
+    public static void parSparseMatVec(final CsrMatrix A, final double[] x,
+            final double[] y) {
+        final int[] bounds = A.partitionByNonZeros(defaultTaskCount());
+        forall(0, bounds.length - 2, (c) -> {
+            A.multiplyVectorRows(x, y, bounds[c], bounds[c + 1]);
+        });
+    }
+
+    /**
+     * Compute the sparse-dense matrix product C = A x B in parallel. Rows are
+     * split into ranges of roughly equal nonzero count rather than equal row
+     * count.
+     *
+     * @param A A sparse input matrix with dimensions MxK
+     * @param B A dense input matrix with dimensions KxN
+     * @param C The dense output matrix with dimensions MxN
+     * @param N Number of columns in B and C
+     */
+    public static void parSparseMatrixMultiply(final CsrMatrix A,
+            final double[][] B, final double[][] C, final int N) {
+        final int[] bounds = A.partitionByNonZeros(defaultTaskCount());
+        forall(0, bounds.length - 2, (c) -> {
+            A.multiplyMatrixRows(B, C, N, bounds[c], bounds[c + 1]);
+        });
+    }
+
+    /**
+     * Reject chunk sizes that are neither positive nor AUTO_CHUNK.
+     *
+     * @param chunk The requested chunk size
+     */
+    private static void checkChunk(final int chunk) {
+        if (chunk < 0) {
+            throw new IllegalArgumentException("Chunk sizes must be positive "
+                    + "or AUTO_CHUNK: " + chunk);
+        }
+    }
+
+    /**
+     * Rows per task when the caller asks for AUTO_CHUNK: enough to give
+     * defaultTaskCount() tasks.
+     *
+     * @param M Number of rows
+     * @return Rows per task
+     */
+    private static int autoRowChunk(final int M) {
+        final int nTasks = defaultTaskCount();
+        return (int) (((long) M + nTasks - 1) / nTasks);
+    }
+
+    /**
+     * Resolve a requested chunk size along a dimension. The result is clamped
+     * to the dimension, so that a huge chunk means one chunk rather than
+     * overflowing the chunk count and start indices computed from it.
+     *
+     * @param chunk The requested chunk size, or AUTO_CHUNK
+     * @param autoChunk The chunk size to use for AUTO_CHUNK
+     * @param extent Size of the dimension
+     * @return Chunk size, between 1 and max(1, extent)
+     */
+    private static int chunkSize(final int chunk, final int autoChunk,
+            final int extent) {
+        final int size;
+        if (chunk == AUTO_CHUNK) {
+            size = autoChunk;
+        } else {
+            size = chunk;
+        }
+        return Math.max(1, Math.min(size, extent));
+    }
+
+    /**
+     * Number of ranges to split one-dimensional loops into. A few ranges per
+     * worker thread lets work stealing absorb imbalance between ranges.
+     *
+     * @return Number of tasks
+     */
+    static int defaultTaskCount() {
+        return 4 * parallelism();
+    }
+
+    /**
+     * Number of worker threads to size task counts for: the parallelism of
+     * the ForkJoinPool the caller runs in, if any, so that a kernel invoked
+     * from a smaller pool is partitioned for that pool, and otherwise the
+     * number of cores.
+     *
+     * @return Number of worker threads
+     */
+    private static int parallelism() {
+        if (ForkJoinTask.inForkJoinPool()) {
+            return ForkJoinTask.getPool().getParallelism();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Calculate the starting index of a chunk when splitting nElements as
+     * evenly as possible into nChunks contiguous chunks.
+     *
+     * @param chunk The chunk number, from 0 to nChunks inclusive
+     * @param nChunks The total number of chunks
+     * @param nElements The total number of elements
+     * @return The starting index of the chunk, or nElements for chunk nChunks
+     */
+    private static int getChunkStartInclusive(final int chunk,
+            final int nChunks, final int nElements) {
+        return (int) ((long) nElements * chunk / nChunks);
+    }
+
+    /**
+     * A single level of the Strassen-Winograd recursion, computing C = A x B
+     * for NxN operands.
+     */
+    private static final class StrassenTask extends RecursiveAction {
+        /** Serialization version. */
+        private static final long serialVersionUID = 1L;
+        /** Left operand. */
+        private final double[][] a;
+        /** Right operand. */
+        private final double[][] b;
+        /** Output. */
+        private final double[][] c;
+        /** Size of each dimension of the operands. */
+        private final int n;
+        /** Problem size at or below which to stop recursing. */
+        private final int cutoff;
+
+        /**
+         * Constructor.
+         *
+         * @param setA Left operand
+         * @param setB Right operand
+         * @param setC Output
+         * @param setN Size of each dimension of the operands
+         * @param setCutoff Problem size at or below which to stop recursing
+         */
+        StrassenTask(final double[][] setA, final double[][] setB,
+                final double[][] setC, final int setN, final int setCutoff) {
+            this.a = setA;
+            this.b = setB;
+            this.c = setC;
+            this.n = setN;
+            this.cutoff = setCutoff;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void compute() {
+            if (n <= cutoff || n % 2 != 0) {
+                seqBlockedMatrixMultiply(a, b, c, n);
+                return;
+            }
+
+            final int h = n / 2;
+            final double[][] a11 = quadrant(a, 0, 0, h);
+            final double[][] a12 = quadrant(a, 0, h, h);
+            final double[][] a21 = quadrant(a, h, 0, h);
+            final double[][] a22 = quadrant(a, h, h, h);
+            final double[][] b11 = quadrant(b, 0, 0, h);
+            final double[][] b12 = quadrant(b, 0, h, h);
+            final double[][] b21 = quadrant(b, h, 0, h);
+            final double[][] b22 = quadrant(b, h, h, h);
+
+            final double[][] s1 = add(a21, a22, h);
+            final double[][] s2 = sub(s1, a11, h);
+            final double[][] s3 = sub(a11, a21, h);
+            final double[][] s4 = sub(a12, s2, h);
+            final double[][] t1 = sub(b12, b11, h);
+            final double[][] t2 = sub(b22, t1, h);
+            final double[][] t3 = sub(b22, b12, h);
+            final double[][] t4 = sub(t2, b21, h);
+
+            final double[][] p1 = new double[h][h];
+            final double[][] p2 = new double[h][h];
+            final double[][] p3 = new double[h][h];
+            final double[][] p4 = new double[h][h];
+            final double[][] p5 = new double[h][h];
+            final double[][] p6 = new double[h][h];
+            final double[][] p7 = new double[h][h];
+
+            invokeAll(new StrassenTask(a11, b11, p1, h, cutoff),
+                    new StrassenTask(a12, b21, p2, h, cutoff),
+                    new StrassenTask(s4, b22, p3, h, cutoff),
+                    new StrassenTask(a22, t4, p4, h, cutoff),
+                    new StrassenTask(s1, t1, p5, h, cutoff),
+                    new StrassenTask(s2, t2, p6, h, cutoff),
+                    new StrassenTask(s3, t3, p7, h, cutoff));
+
+            for (int i = 0; i < h; i++) {
+                final double[] cTop = c[i];
+                final double[] cBottom = c[i + h];
+                for (int j = 0; j < h; j++) {
+                    final double u2 = p1[i][j] + p6[i][j];
+                    final double u3 = u2 + p7[i][j];
+                    final double u4 = u2 + p5[i][j];
+                    cTop[j] = p1[i][j] + p2[i][j];
+                    cTop[j + h] = u4 + p3[i][j];
+                    cBottom[j] = u3 - p4[i][j];
+                    cBottom[j + h] = u3 + p5[i][j];
+                }
+            }
+        }
+
+        /**
+         * Copy out one quadrant of a matrix.
+         *
+         * @param m Source matrix
+         * @param row First row of the quadrant
+         * @param col First column of the quadrant
+         * @param h Size of each dimension of the quadrant
+         * @return A new hxh matrix
+         */
+        private static double[][] quadrant(final double[][] m, final int row,
+                final int col, final int h) {
+            final double[][] q = new double[h][];
+            for (int i = 0; i < h; i++) {
+                q[i] = Arrays.copyOfRange(m[row + i], col, col + h);
+            }
+            return q;
+        }
+
+        /**
+         * Element-wise sum of two matrices.
+         *
+         * @param x Left operand
+         * @param y Right operand
+         * @param h Size of each dimension of the operands
+         * @return A new hxh matrix holding x + y
+         */
+        private static double[][] add(final double[][] x, final double[][] y,
+                final int h) {
+            final double[][] r = new double[h][h];
+            for (int i = 0; i < h; i++) {
+                for (int j = 0; j < h; j++) {
+                    r[i][j] = x[i][j] + y[i][j];
+                }
+            }
+            return r;
+        }
+
+        /**
+         * Element-wise difference of two matrices.
+         *
+         * @param x Left operand
+         * @param y Right operand
+         * @param h Size of each dimension of the operands
+         * @return A new hxh matrix holding x - y
+         */
+        private static double[][] sub(final double[][] x, final double[][] y,
+                final int h) {
+            final double[][] r = new double[h][h];
+            for (int i = 0; i < h; i++) {
+                for (int j = 0; j < h; j++) {
+                    r[i][j] = x[i][j] - y[i][j];
+                }
+            }
+            return r;
+        }
+    }
 }
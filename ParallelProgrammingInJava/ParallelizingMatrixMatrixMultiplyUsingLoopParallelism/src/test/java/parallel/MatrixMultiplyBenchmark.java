@@ -0,0 +1,197 @@
+package parallel;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the dense MatrixMultiply kernels. Besides the usual
+ * ops/s score, every benchmark reports two secondary rates:
+ *
+ * - gflop: billions of floating-point operations per second, counting 2N^3
+ *   per NxN multiply. For Strassen-Winograd this is the effective rate of
+ *   the classical algorithm, not the operations actually executed.
+ * - compulsoryGbyte: billions of bytes per second of compulsory traffic,
+ *   counting one read of A and B and one write of C. This is a fixed lower
+ *   bound derived from N, not a measurement: kernels that re-read operands
+ *   from memory move more bytes than this.
+ *
+ * To measure the memory traffic actually achieved, add "-prof perfnorm" to
+ * the JMH arguments on a Linux machine with perf. It reports hardware
+ * counters per operation; last-level cache misses times the 64-byte line
+ * size, divided by the time per operation, is the achieved DRAM bandwidth.
+ *
+ * Run with "mvn -P benchmark test-compile", passing JMH options through
+ * -Djmh.args, e.g. -Djmh.args="-p n=2048 -p threads=16 parallel.MatrixMultiplyBenchmark.par".
+ * For each value of threads, the PCDP runtime is resized to that many workers
+ * and the kernels are invoked from inside a ForkJoinPool of the same size,
+ * which the Strassen kernel forks into and whose parallelism the other
+ * kernels size their task counts from.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MatrixMultiplyBenchmark {
+
+    /**
+     * Random NxN operands in both precisions.
+     */
+    @State(Scope.Benchmark)
+    public static class Operands {
+        @Param({"256", "512", "1024"})
+        public int n;
+
+        double[][] a;
+        double[][] b;
+        double[][] c;
+        FloatMatrix fa;
+        FloatMatrix fb;
+        FloatMatrix fc;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            final Random rand = new Random(314);
+            a = new double[n][n];
+            b = new double[n][n];
+            c = new double[n][n];
+            fa = new FloatMatrix(n, n);
+            fb = new FloatMatrix(n, n);
+            fc = new FloatMatrix(n, n);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    a[i][j] = rand.nextDouble();
+                    b[i][j] = rand.nextDouble();
+                    fa.set(i, j, (float) a[i][j]);
+                    fb.set(i, j, (float) b[i][j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * The pool parallel kernels are run in.
+     */
+    @State(Scope.Benchmark)
+    public static class Pool {
+        @Param({"1", "2", "4", "8"})
+        public int threads;
+
+        ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            edu.rice.pcdp.runtime.Runtime.resizeWorkerThreads(threads);
+            pool = new ForkJoinPool(threads);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+        }
+
+        void run(final Runnable kernel) {
+            pool.submit(kernel).join();
+        }
+    }
+
+    /**
+     * Chunk sizes for the chunked kernel; 0 is MatrixMultiply.AUTO_CHUNK.
+     */
+    @State(Scope.Benchmark)
+    public static class Chunks {
+        @Param({"0", "8", "32"})
+        public int rowChunk;
+
+        @Param({"0", "64"})
+        public int colChunk;
+    }
+
+    /**
+     * Secondary rates reported alongside each score.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Rates {
+        public double gflop;
+        public double compulsoryGbyte;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            gflop = 0;
+            compulsoryGbyte = 0;
+        }
+
+        void record(final int n, final int bytesPerElement) {
+            gflop += 2.0 * n * n * n / 1e9;
+            compulsoryGbyte += 3.0 * n * n * bytesPerElement / 1e9;
+        }
+    }
+
+    @Benchmark
+    public double[][] seqMatrixMultiply(final Operands o, final Rates r) {
+        MatrixMultiply.seqMatrixMultiply(o.a, o.b, o.c, o.n);
+        r.record(o.n, Double.BYTES);
+        return o.c;
+    }
+
+    @Benchmark
+    public double[][] seqBlockedMatrixMultiply(final Operands o, final Rates r) {
+        MatrixMultiply.seqBlockedMatrixMultiply(o.a, o.b, o.c, o.n);
+        r.record(o.n, Double.BYTES);
+        return o.c;
+    }
+
+    @Benchmark
+    public FloatMatrix seqFloatMatrixMultiply(final Operands o, final Rates r) {
+        MatrixMultiply.seqMatrixMultiply(o.fa, o.fb, o.fc);
+        r.record(o.n, Float.BYTES);
+        return o.fc;
+    }
+
+    @Benchmark
+    public double[][] parMatrixMultiply(final Operands o, final Pool p, final Rates r) {
+        p.run(() -> MatrixMultiply.parMatrixMultiply(o.a, o.b, o.c, o.n));
+        r.record(o.n, Double.BYTES);
+        return o.c;
+    }
+
+    @Benchmark
+    public double[][] parChunkedMatrixMultiply(final Operands o, final Pool p, final Chunks ch,
+            final Rates r) {
+        p.run(() -> MatrixMultiply.parMatrixMultiply(o.a, o.b, o.c, o.n, o.n, o.n,
+                ch.rowChunk, ch.colChunk));
+        r.record(o.n, Double.BYTES);
+        return o.c;
+    }
+
+    @Benchmark
+    public double[][] strassenMatrixMultiply(final Operands o, final Pool p, final Rates r) {
+        p.run(() -> MatrixMultiply.strassenMatrixMultiply(o.a, o.b, o.c, o.n));
+        r.record(o.n, Double.BYTES);
+        return o.c;
+    }
+
+    @Benchmark
+    public FloatMatrix parFloatMatrixMultiply(final Operands o, final Pool p, final Rates r) {
+        p.run(() -> MatrixMultiply.parMatrixMultiply(o.fa, o.fb, o.fc));
+        r.record(o.n, Float.BYTES);
+        return o.fc;
+    }
+}
@@ -1,5 +1,9 @@
 package parallel;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Random;
 
 import junit.framework.TestCase;
@@ -31,6 +35,27 @@ public class MatrixMultiplyTest extends TestCase {
         return input;
     }
 
+    /**
+     * Create a double[][] with dimensions MxN to use as input for the tests.
+     *
+     * @param M Number of rows
+     * @param N Number of columns
+     * @param seed Seed for the random contents
+     * @return Initialized double matrix with dimensions MxN
+     */
+    private double[][] createMatrix(final int M, final int N, final long seed) {
+        final double[][] input = new double[M][N];
+        final Random rand = new Random(seed);
+
+        for (int i = 0; i < M; i++) {
+            for (int j = 0; j < N; j++) {
+                input[i][j] = rand.nextInt(100);
+            }
+        }
+
+        return input;
+    }
+
     /**
      * Check if there is any difference in the correct and generated outputs.
      */
@@ -104,4 +129,338 @@ public class MatrixMultiplyTest extends TestCase {
         parTestHelper(768);
         // The parallel version will take more time here because of the overhead of parallelization.
     }
+
+    /**
+     * A helper function for tests of the Strassen-Winograd implementation.
+     *
+     * @param N The size of the array to test
+     * @param cutoff Problem size at which to stop recursing
+     */
+    private void strassenTestHelper(final int N, final int cutoff) {
+        final double[][] A = createMatrix(N);
+        final double[][] B = createMatrix(N);
+        final double[][] C = new double[N][N];
+        final double[][] refC = new double[N][N];
+
+        MatrixMultiply.seqMatrixMultiply(A, B, refC, N);
+        MatrixMultiply.strassenMatrixMultiply(A, B, C, N, cutoff);
+
+        checkResult(refC, C, N);
+    }
+
+    /**
+     * Tests the blocked classical kernel on a size that is not a multiple of the block size.
+     */
+    public void testSeqBlocked300_x_300() {
+        final int N = 300;
+        final double[][] A = createMatrix(N);
+        final double[][] B = createMatrix(N);
+        final double[][] C = new double[N][N];
+        final double[][] refC = new double[N][N];
+
+        MatrixMultiply.seqMatrixMultiply(A, B, refC, N);
+        MatrixMultiply.seqBlockedMatrixMultiply(A, B, C, N);
+
+        checkResult(refC, C, N);
+    }
+
+    /**
+     * Tests the Strassen-Winograd implementation on a 512x512 matrix with several levels of recursion.
+     */
+    public void testStrassen512_x_512() {
+        strassenTestHelper(512, 64);
+    }
+
+    /**
+     * Tests the Strassen-Winograd implementation on a size that becomes odd part-way down the recursion.
+     */
+    public void testStrassen300_x_300() {
+        strassenTestHelper(300, 32);
+    }
+
+    /**
+     * Tests the rectangular parallel implementation against the sequential one on a 200x300 by 300x150 product.
+     */
+    public void testParRectangular() {
+        final int M = 200;
+        final int K = 300;
+        final int N = 150;
+        final double[][] A = createMatrix(M, K, 1);
+        final double[][] B = createMatrix(K, N, 2);
+        final double[][] C = new double[M][N];
+        final double[][] refC = new double[M][N];
+
+        // Check one cell by hand so both versions are not wrong in the same way
+        double expected = 0.0;
+        for (int k = 0; k < K; k++) {
+            expected += A[M - 1][k] * B[k][N - 1];
+        }
+
+        MatrixMultiply.seqMatrixMultiply(A, B, refC, M, K, N);
+        MatrixMultiply.parMatrixMultiply(A, B, C, M, K, N);
+
+        assertEquals(expected, refC[M - 1][N - 1]);
+        for (int i = 0; i < M; i++) {
+            for (int j = 0; j < N; j++) {
+                assertEquals("Error detected on cell (" + i + ", " + j + ")", refC[i][j], C[i][j]);
+            }
+        }
+    }
+
+    /**
+     * Tests the batched implementation on many small 64x64 products.
+     */
+    public void testParBatch64_x_64() {
+        final int batch = 500;
+        final int N = 64;
+        final double[][][] As = new double[batch][][];
+        final double[][][] Bs = new double[batch][][];
+        final double[][][] Cs = new double[batch][N][N];
+        for (int b = 0; b < batch; b++) {
+            As[b] = createMatrix(N, N, 2 * b);
+            Bs[b] = createMatrix(N, N, 2 * b + 1);
+        }
+
+        MatrixMultiply.parBatchMatrixMultiply(As, Bs, Cs, N, N, N);
+
+        final double[][] refC = new double[N][N];
+        for (int b = 0; b < batch; b++) {
+            MatrixMultiply.seqMatrixMultiply(As[b], Bs[b], refC, N);
+            checkResult(refC, Cs[b], N);
+        }
+    }
+
+    /**
+     * Create a matrix with dimensions MxN where roughly one cell in every
+     * sparsity is nonzero, with the first row fully dense to skew the row
+     * lengths.
+     *
+     * @param M Number of rows
+     * @param N Number of columns
+     * @param sparsity Average number of cells per nonzero
+     * @return Initialized double matrix with dimensions MxN
+     */
+    private double[][] createSparseMatrix(final int M, final int N, final int sparsity) {
+        final double[][] input = new double[M][N];
+        final Random rand = new Random(271);
+
+        for (int i = 0; i < M; i++) {
+            for (int j = 0; j < N; j++) {
+                if (i == 0 || rand.nextInt(sparsity) == 0) {
+                    input[i][j] = 1 + rand.nextInt(99);
+                }
+            }
+        }
+
+        return input;
+    }
+
+    /**
+     * Tests the parallel sparse matrix-vector product against the dense kernel.
+     */
+    public void testParSparseMatVec() {
+        final int M = 2000;
+        final int K = 1500;
+        final double[][] dense = createSparseMatrix(M, K, 100);
+        final double[][] x = createMatrix(K, 1, 3);
+        final double[][] refY = new double[M][1];
+        MatrixMultiply.seqMatrixMultiply(dense, x, refY, M, K, 1);
+
+        final CsrMatrix A = CsrMatrix.fromDense(dense, M, K);
+        final double[] xVec = new double[K];
+        for (int k = 0; k < K; k++) {
+            xVec[k] = x[k][0];
+        }
+        final double[] y = new double[M];
+        MatrixMultiply.parSparseMatVec(A, xVec, y);
+
+        for (int i = 0; i < M; i++) {
+            assertEquals("Error detected on row " + i, refY[i][0], y[i]);
+        }
+        assertTrue(Arrays.equals(new int[] {0, M}, A.partitionByNonZeros(1)));
+        try {
+            A.partitionByNonZeros(0);
+            fail("Expected a non-positive chunk count to be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests the parallel sparse-dense matrix product against the dense kernel.
+     */
+    public void testParSparseMatrixMultiply() {
+        final int M = 600;
+        final int K = 500;
+        final int N = 300;
+        final double[][] dense = createSparseMatrix(M, K, 50);
+        final double[][] B = createMatrix(K, N, 4);
+        final double[][] C = new double[M][N];
+        final double[][] refC = new double[M][N];
+        MatrixMultiply.seqMatrixMultiply(dense, B, refC, M, K, N);
+
+        final CsrMatrix A = CsrMatrix.fromDense(dense, M, K);
+        MatrixMultiply.parSparseMatrixMultiply(A, B, C, N);
+
+        for (int i = 0; i < M; i++) {
+            for (int j = 0; j < N; j++) {
+                assertEquals("Error detected on cell (" + i + ", " + j + ")", refC[i][j], C[i][j]);
+            }
+        }
+    }
+
+    /**
+     * Tests the single-precision kernels against the double-precision sequential kernel.
+     */
+    public void testFloat300_x_200() {
+        final int M = 300;
+        final int K = 250;
+        final int N = 200;
+        final double[][] A = createMatrix(M, K, 5);
+        final double[][] B = createMatrix(K, N, 6);
+        final double[][] refC = new double[M][N];
+        MatrixMultiply.seqMatrixMultiply(A, B, refC, M, K, N);
+
+        final FloatMatrix fA = new FloatMatrix(M, K);
+        final FloatMatrix fB = new FloatMatrix(K, N);
+        for (int i = 0; i < M; i++) {
+            for (int k = 0; k < K; k++) {
+                fA.set(i, k, (float) A[i][k]);
+            }
+        }
+        for (int k = 0; k < K; k++) {
+            for (int j = 0; j < N; j++) {
+                fB.set(k, j, (float) B[k][j]);
+            }
+        }
+
+        final FloatMatrix seqC = new FloatMatrix(M, N);
+        final FloatMatrix parC = new FloatMatrix(M, N);
+        final FloatMatrix chunkedC = new FloatMatrix(M, N);
+        final FloatMatrix hugeChunkC = new FloatMatrix(M, N);
+        MatrixMultiply.seqMatrixMultiply(fA, fB, seqC);
+        MatrixMultiply.parMatrixMultiply(fA, fB, parC);
+        MatrixMultiply.parMatrixMultiply(fA, fB, chunkedC, MatrixMultiply.AUTO_CHUNK);
+        MatrixMultiply.parMatrixMultiply(fA, fB, hugeChunkC, Integer.MAX_VALUE);
+
+        // Products of integers below 100 summed over 250 terms are exact in single precision
+        for (int i = 0; i < M; i++) {
+            for (int j = 0; j < N; j++) {
+                String msg = "Error detected on cell (" + i + ", " + j + ")";
+                assertEquals(msg, (float) refC[i][j], seqC.get(i, j), 0.0f);
+                assertEquals(msg, (float) refC[i][j], parC.get(i, j), 0.0f);
+                assertEquals(msg, (float) refC[i][j], chunkedC.get(i, j), 0.0f);
+                assertEquals(msg, (float) refC[i][j], hugeChunkC.get(i, j), 0.0f);
+            }
+        }
+    }
+
+    /**
+     * Tests the chunked parallel implementation with explicit and automatic chunk sizes, including chunks that do
+     * not divide the matrix evenly and chunks larger than the matrix.
+     */
+    public void testParChunked() {
+        final int M = 257;
+        final int K = 130;
+        final int N = 190;
+        final double[][] A = createMatrix(M, K, 7);
+        final double[][] B = createMatrix(K, N, 8);
+        final double[][] refC = new double[M][N];
+        MatrixMultiply.seqMatrixMultiply(A, B, refC, M, K, N);
+
+        final int[][] chunkSizes = {{1, 1}, {16, 64}, {100, 7}, {M, N},
+            {MatrixMultiply.AUTO_CHUNK, MatrixMultiply.AUTO_CHUNK},
+            {Integer.MAX_VALUE, Integer.MAX_VALUE}, {Integer.MAX_VALUE - 1, 1}};
+        for (int[] chunk : chunkSizes) {
+            final double[][] C = new double[M][N];
+            MatrixMultiply.parMatrixMultiply(A, B, C, M, K, N, chunk[0], chunk[1]);
+            for (int i = 0; i < M; i++) {
+                for (int j = 0; j < N; j++) {
+                    assertEquals("Error detected on cell (" + i + ", " + j + ") with chunks " + chunk[0] + "x"
+                            + chunk[1], refC[i][j], C[i][j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests the memory-mapped implementation on operands whose sizes are not multiples of the tile size, and with a
+     * tile larger than the operands.
+     */
+    public void testMappedMatrixMultiply() throws IOException {
+        final int M = 150;
+        final int K = 120;
+        final int N = 130;
+        final double[][] A = createMatrix(M, K, 9);
+        final double[][] B = createMatrix(K, N, 10);
+        final double[][] refC = new double[M][N];
+        MatrixMultiply.seqMatrixMultiply(A, B, refC, M, K, N);
+
+        final Path aFile = File.createTempFile("matrixA", ".bin").toPath();
+        final Path bFile = File.createTempFile("matrixB", ".bin").toPath();
+        final Path cFile = File.createTempFile("matrixC", ".bin").toPath();
+        try {
+            MappedMatrixMultiply.writeMatrix(aFile, A, M, K);
+            MappedMatrixMultiply.writeMatrix(bFile, B, K, N);
+            // Several tiles per panel, many small tiles, and one tile larger than every dimension
+            for (int tile : new int[] {32, 7, 1000}) {
+                MappedMatrixMultiply.parMatrixMultiply(aFile, bFile, cFile, M, K, N, tile);
+
+                final double[][] C = MappedMatrixMultiply.readMatrix(cFile, M, N);
+                for (int i = 0; i < M; i++) {
+                    for (int j = 0; j < N; j++) {
+                        assertEquals("Error detected on cell (" + i + ", " + j + ") with tile " + tile, refC[i][j],
+                                C[i][j]);
+                    }
+                }
+            }
+        } finally {
+            aFile.toFile().delete();
+            bFile.toFile().delete();
+            cFile.toFile().delete();
+        }
+    }
+
+    /**
+     * Tests the parallel matrix-vector and transposed matrix-vector products against the dense kernel.
+     */
+    public void testParMatVec() {
+        final int M = 1000;
+        final int N = 700;
+        final double[][] A = createMatrix(M, N, 11);
+        final double[][] xCol = createMatrix(Math.max(M, N), 1, 12);
+        final double[] x = new double[Math.max(M, N)];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = xCol[i][0];
+        }
+
+        final double[][] refY = new double[M][1];
+        MatrixMultiply.seqMatrixMultiply(A, xCol, refY, M, N, 1);
+        final double[] y = new double[M];
+        MatrixMultiply.parMatVec(A, x, y, M, N);
+        for (int i = 0; i < M; i++) {
+            assertEquals("Error detected on row " + i, refY[i][0], y[i]);
+        }
+        for (int rowChunk : new int[] {1, 7, M, Integer.MAX_VALUE}) {
+            final double[] yc = new double[M];
+            MatrixMultiply.parMatVec(A, x, yc, M, N, rowChunk);
+            for (int i = 0; i < M; i++) {
+                assertEquals("Error detected on row " + i + " with chunk " + rowChunk, refY[i][0], yc[i]);
+            }
+        }
+
+        final double[][] At = new double[N][M];
+        for (int i = 0; i < M; i++) {
+            for (int j = 0; j < N; j++) {
+                At[j][i] = A[i][j];
+            }
+        }
+        final double[][] refYt = new double[N][1];
+        MatrixMultiply.seqMatrixMultiply(At, xCol, refYt, N, M, 1);
+        final double[] yt = new double[N];
+        MatrixMultiply.parTransposeMatVec(A, x, yt, M, N);
+        for (int j = 0; j < N; j++) {
+            assertEquals("Error detected on column " + j, refYt[j][0], yt[j]);
+        }
+    }
 }